@@ -6,9 +6,13 @@ import java.io.File;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import ui.Design3DPanel;
 import ui.LoginFrame;
+import ui.PlanThumbnailRenderer;
 import model.Design;
+import model.DesignModel;
 import service.DesignService;
+import service.ThumbnailService;
 
 /**
  * Main class for the Furniture Design Application
@@ -44,7 +48,8 @@ public class Main {
     
     /**
      * Application entry point
-     * @param args command line arguments (not used)
+     * @param args command line arguments; --thumbnails renders the thumbnails of all saved designs and exits,
+     *             --turntable designId [frames] [width] [height] renders a turntable of a saved design and exits
      */
     public static void main(String[] args) {
         // Configure logging
@@ -52,6 +57,23 @@ public class Main {
         
         LOGGER.info("Starting " + APP_NAME + " version " + APP_VERSION);
         
+        // Batch mode needs no display
+        if (args.length > 0 && args[0].equals("--thumbnails")) {
+            System.setProperty("java.awt.headless", "true");
+            ensureApplicationDirectories();
+            ThumbnailService thumbnails = new ThumbnailService(new DesignService(), new PlanThumbnailRenderer());
+            long start = System.currentTimeMillis();
+            int failed = thumbnails.generateAll();
+            LOGGER.info("Thumbnails updated in " + (System.currentTimeMillis() - start) + " ms, " + failed + " failed");
+            return;
+        }
+        if (args.length > 1 && args[0].equals("--turntable")) {
+            System.setProperty("java.awt.headless", "true");
+            ensureApplicationDirectories();
+            exportTurntable(args);
+            return;
+        }
+        
         // Set the look and feel to the system default
         try {
             // Try to use Nimbus look and feel if available
@@ -84,6 +106,26 @@ public class Main {
         });
     }
     
+    /**
+     * Renders a turntable of a saved design into the exports directory, without a display
+     * @param args --turntable, the design id, and optionally the frame count, width and height
+     */
+    private static void exportTurntable(String[] args) {
+        String designId = args[1];
+        int frames = args.length > 2 ? Integer.parseInt(args[2]) : 360;
+        int width = args.length > 3 ? Integer.parseInt(args[3]) : 1920;
+        int height = args.length > 4 ? Integer.parseInt(args[4]) : 1080;
+        try {
+            DesignModel model = new DesignModel();
+            model.loadFrom(new DesignService().loadDesign(designId));
+            long start = System.currentTimeMillis();
+            new Design3DPanel(model).exportTurntable(new File("exports"), designId, frames, width, height);
+            LOGGER.info(frames + " turntable frames written in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Turntable export failed: " + e.getMessage(), e);
+        }
+    }
+    
     /**
      * Configure application logging
      */
@@ -99,7 +141,9 @@ public class Main {
     private static void ensureApplicationDirectories() {
         // Ensure designs directory exists
         File designsDir = new File("designs");
-        if (!designsDir.exists()) {
+        if (designsDir.exists() && !designsDir.isDirectory()) {
+            LOGGER.severe("designs exists but is not a directory; designs cannot be saved");
+        } else if (!designsDir.exists()) {
             boolean created = designsDir.mkdirs();
             if (created) {
                 LOGGER.info("Created designs directory");
@@ -110,7 +154,9 @@ public class Main {
         
         // Ensure exports directory exists
         File exportsDir = new File("exports");
-        if (!exportsDir.exists()) {
+        if (exportsDir.exists() && !exportsDir.isDirectory()) {
+            LOGGER.severe("exports exists but is not a directory; exports will fail");
+        } else if (!exportsDir.exists()) {
             boolean created = exportsDir.mkdirs();
             if (created) {
                 LOGGER.info("Created exports directory");
@@ -0,0 +1,105 @@
+package model;
+
+import java.awt.Color;
+
+/**
+ * Canonical Color instances, one per packed ARGB value
+ * Items, views and renderers share the pooled instance instead of each
+ * holding their own copy, and designs written with pooled colors store each
+ * distinct color once. Entries live in an open-addressing table; if the pool
+ * ever outgrows MAX_SIZE it starts over, which only costs sharing, since
+ * colors still compare by value. Safe to call from any thread.
+ */
+public final class ColorPool {
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MAX_SIZE = 1 << 16;
+
+    // Keys are the ARGB values, slots are used when the color is set
+    private static int[] keys = new int[INITIAL_CAPACITY];
+    private static Color[] colors = new Color[INITIAL_CAPACITY];
+    private static int size = 0;
+
+    private ColorPool() {
+    }
+
+    /**
+     * Gets the canonical instance of a color
+     * @param color the color, or null
+     * @return the pooled color equal to it, or null
+     */
+    public static Color get(Color color) {
+        if (color == null) return null;
+        return lookup(color.getRGB(), color);
+    }
+
+    /**
+     * Gets the canonical instance of a packed color
+     * @param argb the color as ARGB
+     * @return the pooled color
+     */
+    public static Color get(int argb) {
+        return lookup(argb, null);
+    }
+
+    /**
+     * Gets the canonical instance of an opaque color
+     * @param r the red component, 0-255
+     * @param g the green component, 0-255
+     * @param b the blue component, 0-255
+     * @return the pooled color
+     */
+    public static Color get(int r, int g, int b) {
+        return lookup(0xFF000000 | (r & 0xFF) << 16 | (g & 0xFF) << 8 | (b & 0xFF), null);
+    }
+
+    private static synchronized Color lookup(int argb, Color candidate) {
+        int mask = keys.length - 1;
+        int slot = mix(argb) & mask;
+        while (colors[slot] != null) {
+            if (keys[slot] == argb) {
+                return colors[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        // Subclasses such as UI resources carry more than their value, so only plain colors are shared
+        Color result = candidate != null && candidate.getClass() == Color.class ? candidate : new Color(argb, true);
+        if (size >= MAX_SIZE) {
+            keys = new int[INITIAL_CAPACITY];
+            colors = new Color[INITIAL_CAPACITY];
+            size = 0;
+            slot = mix(argb) & (INITIAL_CAPACITY - 1);
+        }
+        keys[slot] = argb;
+        colors[slot] = result;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+        return result;
+    }
+
+    private static void grow() {
+        int[] oldKeys = keys;
+        Color[] oldColors = colors;
+        keys = new int[oldKeys.length * 2];
+        colors = new Color[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldColors[i] == null) continue;
+            int slot = mix(oldKeys[i]) & mask;
+            while (colors[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            colors[slot] = oldColors[i];
+        }
+    }
+
+    /**
+     * Spreads the color bits so nearby colors do not cluster in the table
+     */
+    private static int mix(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
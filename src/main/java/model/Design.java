@@ -62,7 +62,7 @@ public class Design implements Serializable {
     
     public Color getRoomColor() { return roomColor; }
     public void setRoomColor(Color roomColor) { 
-        this.roomColor = roomColor; 
+        this.roomColor = ColorPool.get(roomColor); 
         updateModifiedTime();
     }
     
@@ -86,6 +86,12 @@ public class Design implements Serializable {
         this.lastModifiedTime = System.currentTimeMillis();
     }
     
+    // Share the room color with the rest of the application after loading
+    private Object readResolve() {
+        roomColor = ColorPool.get(roomColor);
+        return this;
+    }
+    
     // Serializable nested class for furniture items
     public static class FurnitureItem implements Serializable {
         private int x, y, width, height;
@@ -99,8 +105,8 @@ public class Design implements Serializable {
             this.y = y;
             this.width = width;
             this.height = height;
-            this.color = color;
-            this.type = type;
+            this.color = ColorPool.get(color);
+            this.type = FurnitureCatalog.internName(type);
         }
         
         // Getters and setters
@@ -117,7 +123,7 @@ public class Design implements Serializable {
         public void setHeight(int height) { this.height = height; }
         
         public Color getColor() { return color; }
-        public void setColor(Color color) { this.color = color; }
+        public void setColor(Color color) { this.color = ColorPool.get(color); }
         
         public String getType() { return type; }
         
@@ -140,5 +146,12 @@ public class Design implements Serializable {
             width = (int)(width * factor);
             height = (int)(height * factor);
         }
+        
+        // Saved items arrive with their own copies; swap them for the shared instances
+        private Object readResolve() {
+            color = ColorPool.get(color);
+            type = FurnitureCatalog.internName(type);
+            return this;
+        }
     }
 }
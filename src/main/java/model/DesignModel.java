@@ -2,13 +2,19 @@ package model;
 
 import java.awt.Color;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Shared model class for the furniture design application
  * This class acts as a bridge between the 2D and 3D panels
  * to ensure that changes in one panel are reflected in the other
+ * Edits to the room and furniture are recorded for undo and redo; an item
+ * brought back by either is announced as ITEM_RESTORED.
  */
 public class DesignModel {
     public interface DesignModelListener {
@@ -21,8 +27,14 @@ public class DesignModel {
     private Color roomColor = Color.WHITE;
     private String roomShape = "Rectangle";
     private List<FurnitureItemModel> furnitureItems = new ArrayList<>();
+    private FurnitureItemModel selectedItem;
     private List<DesignModelListener> listeners = new CopyOnWriteArrayList<>();
     
+    // Undo history; edits refer to items by id, so undo finds them without searching
+    private static final long DEFAULT_HISTORY_BUDGET = 4L << 20;
+    private final EditHistory history = new EditHistory(DEFAULT_HISTORY_BUDGET);
+    private Map<Long, FurnitureItemModel> itemsById = new HashMap<>();
+    
     // Lighting and shadow settings
     private float lightIntensity = 0.8f;
     private float shadowIntensity = 0.5f;
@@ -64,7 +76,10 @@ public class DesignModel {
      * @param item the furniture item to add
      */
     public void addFurnitureItem(FurnitureItemModel item) {
+        history.record(new Edit(Edit.ADD, false, item.getId(), furnitureItems.size(),
+            null, null, item.getName(), itemState(item)));
         furnitureItems.add(item);
+        itemsById.put(item.getId(), item);
         notifyListeners("ITEM_ADDED");
     }
     
@@ -73,18 +88,292 @@ public class DesignModel {
      * @param item the furniture item to remove
      */
     public void removeFurnitureItem(FurnitureItemModel item) {
-        furnitureItems.remove(item);
+        int index = furnitureItems.indexOf(item);
+        if (index >= 0) {
+            history.record(new Edit(Edit.REMOVE, false, item.getId(), index,
+                item.getName(), itemState(item), null, null));
+            furnitureItems.remove(index);
+            itemsById.remove(item.getId());
+        }
+        if (item == selectedItem) {
+            setSelectedItem(null);
+        }
         notifyListeners("ITEM_REMOVED");
     }
     
+    /**
+     * Replaces the room and all furniture with a saved design, notifying listeners once
+     * Listeners receive a single MODEL_REPLACED event instead of one event per item,
+     * and rebuild their views in one pass. The selection is cleared; the room
+     * height and lighting are not part of a saved design and are kept. The undo
+     * history starts over.
+     * @param design the design to load
+     */
+    public void loadFrom(Design design) {
+        List<Design.FurnitureItem> source = design.getFurnitureItems();
+        List<FurnitureItemModel> items = new ArrayList<>(source.size());
+        Map<Long, FurnitureItemModel> byId = new HashMap<>(source.size() * 2);
+        for (Design.FurnitureItem item : source) {
+            FurnitureItemModel modelItem = FurnitureItemModel.fromDesign(item);
+            items.add(modelItem);
+            byId.put(modelItem.getId(), modelItem);
+        }
+        
+        this.roomWidth = design.getRoomWidth();
+        this.roomLength = design.getRoomLength();
+        this.roomShape = design.getRoomShape();
+        this.roomColor = ColorPool.get(design.getRoomColor());
+        this.furnitureItems = items;
+        this.itemsById = byId;
+        this.selectedItem = null;
+        history.clear();
+        notifyListeners("MODEL_REPLACED");
+    }
+    
+    /**
+     * Copies the room and furniture into a new design for saving
+     * @param name the design name
+     * @param designerId the id of the designer saving it
+     * @return the new design
+     */
+    public Design toDesign(String name, String designerId) {
+        Design design = new Design(name, designerId);
+        design.setRoomWidth(roomWidth);
+        design.setRoomLength(roomLength);
+        design.setRoomShape(roomShape);
+        design.setRoomColor(roomColor);
+        for (FurnitureItemModel item : furnitureItems) {
+            // Saved items keep the position along the plan, the model z, as their y
+            design.addFurnitureItem(new Design.FurnitureItem(item.getX(), item.getZ(), item.getWidth(),
+                item.getHeight(), item.getColor(), item.getName()));
+        }
+        return design;
+    }
+    
+    /**
+     * Selects a furniture item; every view shows and edits the same selection
+     * @param item the item to select, or null to clear the selection
+     */
+    public void setSelectedItem(FurnitureItemModel item) {
+        if (item == selectedItem) return;
+        selectedItem = item;
+        notifyListeners("SELECTION_CHANGED");
+    }
+    
+    /**
+     * Gets the selected furniture item
+     * @return the selected item, or null if none is selected
+     */
+    public FurnitureItemModel getSelectedItem() {
+        return selectedItem;
+    }
+    
     /**
      * Updates a furniture item in the model
+     * Changes made directly on the item are not recorded for undo; use the
+     * move, resize and property methods for edits the user should be able to undo.
      * @param item the furniture item to update
      */
     public void updateFurnitureItem(FurnitureItemModel item) {
         notifyListeners("ITEM_UPDATED");
     }
     
+    /**
+     * Moves a furniture item along the floor
+     * Consecutive moves of the same item form one undo step until finishMove is called.
+     * @param item the item to move
+     * @param x the new x position
+     * @param z the new z position
+     */
+    public void moveFurnitureItem(FurnitureItemModel item, int x, int z) {
+        String name = item.getName();
+        int[] before = itemState(item);
+        item.setX(x);
+        item.setZ(z);
+        recordItemChange(item, name, before, true);
+        notifyListeners("ITEM_UPDATED");
+    }
+    
+    /**
+     * Ends the current drag, so the next move of the same item is a separate undo step
+     */
+    public void finishMove() {
+        history.finishMove();
+    }
+    
+    /**
+     * Resizes a furniture item
+     * @param item the item to resize
+     * @param width the new width
+     * @param height the new height
+     * @param depth the new depth
+     */
+    public void resizeFurnitureItem(FurnitureItemModel item, int width, int height, int depth) {
+        setFurnitureItemProperties(item, item.getName(), width, height, depth);
+    }
+    
+    /**
+     * Changes the name and size of a furniture item as one undo step
+     * @param item the item to change
+     * @param name the new name
+     * @param width the new width
+     * @param height the new height
+     * @param depth the new depth
+     */
+    public void setFurnitureItemProperties(FurnitureItemModel item, String name, int width, int height, int depth) {
+        String beforeName = item.getName();
+        int[] before = itemState(item);
+        item.setName(name);
+        item.setWidth(width);
+        item.setHeight(height);
+        item.setDepth(depth);
+        recordItemChange(item, beforeName, before, false);
+        notifyListeners("ITEM_UPDATED");
+    }
+    
+    /**
+     * Changes the color of a furniture item
+     * @param item the item to color
+     * @param color the new color
+     */
+    public void setFurnitureItemColor(FurnitureItemModel item, Color color) {
+        String name = item.getName();
+        int[] before = itemState(item);
+        item.setColor(color);
+        recordItemChange(item, name, before, false);
+        notifyListeners("ITEM_UPDATED");
+    }
+    
+    /**
+     * Reverts the most recent edit
+     * @return true if an edit was reverted, false if there was nothing to undo
+     */
+    public boolean undo() {
+        Edit edit = history.undo();
+        if (edit == null) return false;
+        apply(edit, true);
+        return true;
+    }
+    
+    /**
+     * Applies the most recently undone edit again
+     * @return true if an edit was applied, false if there was nothing to redo
+     */
+    public boolean redo() {
+        Edit edit = history.redo();
+        if (edit == null) return false;
+        apply(edit, false);
+        return true;
+    }
+    
+    public boolean canUndo() {
+        return history.canUndo();
+    }
+    
+    public boolean canRedo() {
+        return history.canRedo();
+    }
+    
+    /**
+     * Sets how much memory the undo history may use before older steps are moved to disk
+     * @param bytes the approximate budget in bytes
+     */
+    public void setHistoryMemoryBudget(long bytes) {
+        history.setMemoryBudget(bytes);
+    }
+    
+    private void recordItemChange(FurnitureItemModel item, String beforeName, int[] before, boolean move) {
+        int[] after = itemState(item);
+        if (Arrays.equals(before, after) && beforeName.equals(item.getName())) return;
+        history.record(new Edit(Edit.ITEM, move, item.getId(), -1, beforeName, before, item.getName(), after));
+    }
+    
+    private static int[] itemState(FurnitureItemModel item) {
+        return new int[] { item.getX(), item.getY(), item.getZ(), item.getWidth(), item.getHeight(),
+            item.getDepth(), item.getColor().getRGB() };
+    }
+    
+    private int[] roomState() {
+        return new int[] { roomWidth, roomLength, roomHeight, roomColor.getRGB() };
+    }
+    
+    private void recordRoomChange(String beforeShape, int[] before) {
+        int[] after = roomState();
+        if (Arrays.equals(before, after) && Objects.equals(beforeShape, roomShape)) return;
+        history.record(new Edit(Edit.ROOM, false, 0, -1, beforeShape, before, roomShape, after));
+    }
+    
+    /**
+     * Reverts or repeats an edit and notifies listeners of what changed
+     * @param edit the edit
+     * @param revert true to restore the state before the edit, false for the state after it
+     */
+    private void apply(Edit edit, boolean revert) {
+        String name = revert ? edit.beforeName : edit.afterName;
+        int[] state = revert ? edit.before : edit.after;
+        switch (edit.kind) {
+            case Edit.ADD:
+            case Edit.REMOVE:
+                if (state == null) {
+                    removeItem(edit.itemId);
+                } else {
+                    restoreItem(edit.itemId, edit.index, name, state);
+                }
+                break;
+            case Edit.ITEM:
+                FurnitureItemModel item = itemsById.get(edit.itemId);
+                if (item == null) return;
+                item.setName(name);
+                item.setX(state[0]);
+                item.setY(state[1]);
+                item.setZ(state[2]);
+                item.setWidth(state[3]);
+                item.setHeight(state[4]);
+                item.setDepth(state[5]);
+                item.setColor(ColorPool.get(state[6]));
+                notifyListeners("ITEM_UPDATED");
+                break;
+            case Edit.ROOM:
+                applyRoom(state[0], state[1], state[2], name, ColorPool.get(state[3]));
+                break;
+        }
+    }
+    
+    /**
+     * Sets the whole room and notifies listeners only of the aspects that changed
+     */
+    private void applyRoom(int width, int length, int height, String shape, Color color) {
+        boolean resized = roomWidth != width || roomLength != length || roomHeight != height;
+        boolean reshaped = !Objects.equals(roomShape, shape);
+        boolean recolored = roomColor.getRGB() != color.getRGB();
+        roomWidth = width;
+        roomLength = length;
+        roomHeight = height;
+        roomShape = shape;
+        roomColor = ColorPool.get(color);
+        if (resized) notifyListeners("ROOM_DIMENSIONS_CHANGED");
+        if (reshaped) notifyListeners("ROOM_SHAPE_CHANGED");
+        if (recolored) notifyListeners("ROOM_COLOR_CHANGED");
+    }
+    
+    private void removeItem(long id) {
+        FurnitureItemModel item = itemsById.remove(id);
+        if (item == null) return;
+        furnitureItems.remove(item);
+        if (item == selectedItem) {
+            setSelectedItem(null);
+        }
+        notifyListeners("ITEM_REMOVED");
+    }
+    
+    private void restoreItem(long id, int index, String name, int[] state) {
+        FurnitureItemModel item = new FurnitureItemModel(id, name, state[0], state[1], state[2],
+            state[3], state[4], state[5], ColorPool.get(state[6]));
+        furnitureItems.add(Math.min(index, furnitureItems.size()), item);
+        itemsById.put(id, item);
+        notifyListeners("ITEM_RESTORED");
+    }
+    
     /**
      * Gets all furniture items in the model
      * @return a list of all furniture items
@@ -100,18 +389,38 @@ public class DesignModel {
      * @param height the room height
      */
     public void setRoomDimensions(int width, int length, int height) {
+        int[] before = roomState();
         this.roomWidth = width;
         this.roomLength = length;
         this.roomHeight = height;
+        recordRoomChange(roomShape, before);
         notifyListeners("ROOM_DIMENSIONS_CHANGED");
     }
     
+    /**
+     * Sets the room size, shape and color as one undo step
+     * Listeners hear only about the aspects that actually changed.
+     * @param width the room width
+     * @param length the room length
+     * @param height the room height
+     * @param shape the room shape
+     * @param color the room color
+     */
+    public void setRoom(int width, int length, int height, String shape, Color color) {
+        String beforeShape = roomShape;
+        int[] before = roomState();
+        applyRoom(width, length, height, shape, color);
+        recordRoomChange(beforeShape, before);
+    }
+    
     /**
      * Sets the room color
      * @param color the room color
      */
     public void setRoomColor(Color color) {
-        this.roomColor = color;
+        int[] before = roomState();
+        this.roomColor = ColorPool.get(color);
+        recordRoomChange(roomShape, before);
         notifyListeners("ROOM_COLOR_CHANGED");
     }
     
@@ -160,7 +469,10 @@ public class DesignModel {
      * @param shape the new room shape
      */
     public void setRoomShape(String shape) {
+        String before = roomShape;
+        int[] state = roomState();
         this.roomShape = shape;
+        recordRoomChange(before, state);
         notifyListeners("ROOM_SHAPE_CHANGED");
     }
     
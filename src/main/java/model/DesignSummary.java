@@ -0,0 +1,51 @@
+package model;
+
+/**
+ * The few fields of a saved design that a design browser shows
+ * Summaries are small and stored next to each design, so a browser can
+ * list thousands of designs without deserializing any of them.
+ */
+public class DesignSummary {
+    private final String id;
+    private final String name;
+    private final String designerId;
+    private final int itemCount;
+    private final long lastModifiedTime;
+
+    /**
+     * Creates a summary
+     * @param id the design id
+     * @param name the design name
+     * @param designerId the id of the designer who saved it
+     * @param itemCount the number of furniture items
+     * @param lastModifiedTime when the design was last modified, in milliseconds since the epoch
+     */
+    public DesignSummary(String id, String name, String designerId, int itemCount, long lastModifiedTime) {
+        this.id = id;
+        this.name = name;
+        this.designerId = designerId;
+        this.itemCount = itemCount;
+        this.lastModifiedTime = lastModifiedTime;
+    }
+
+    /**
+     * Creates the summary of a design
+     * @param design the design
+     * @return its summary
+     */
+    public static DesignSummary of(Design design) {
+        return new DesignSummary(design.getId(), design.getName(), design.getDesignerId(),
+            design.getFurnitureItems().size(), design.getLastModifiedTime());
+    }
+
+    // Getters
+    public String getId() { return id; }
+
+    public String getName() { return name; }
+
+    public String getDesignerId() { return designerId; }
+
+    public int getItemCount() { return itemCount; }
+
+    public long getLastModifiedTime() { return lastModifiedTime; }
+}
@@ -0,0 +1,113 @@
+package model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * One reversible change to a design, as recorded in the undo history
+ * An edit holds only the values that changed and refers to items by id, so
+ * it stays small, never copies the model and can be written to disk as is.
+ * Item states are x, y, z, width, height, depth and ARGB color; room states
+ * are width, length, height and ARGB color, with the shape as the name.
+ */
+final class Edit {
+    static final byte ADD = 0;
+    static final byte REMOVE = 1;
+    static final byte ITEM = 2;
+    static final byte ROOM = 3;
+
+    // Rough heap cost of an edit and its two state arrays, for the history's memory budget
+    private static final int BASE_SIZE = 96;
+
+    final byte kind;
+    // Set for item moves, which may absorb the next move of the same item
+    final boolean move;
+    final long itemId;
+    // Position of an added or removed item in the model's item list
+    final int index;
+    final String beforeName;
+    final int[] before;
+    String afterName;
+    int[] after;
+
+    Edit(byte kind, boolean move, long itemId, int index, String beforeName, int[] before,
+         String afterName, int[] after) {
+        this.kind = kind;
+        this.move = move;
+        this.itemId = itemId;
+        this.index = index;
+        this.beforeName = beforeName;
+        this.before = before;
+        this.afterName = afterName;
+        this.after = after;
+    }
+
+    /**
+     * Gets the approximate number of heap bytes the edit keeps alive
+     */
+    int estimatedSize() {
+        return BASE_SIZE + 4 * ((before == null ? 0 : before.length) + (after == null ? 0 : after.length));
+    }
+
+    /**
+     * Writes the edit to a history segment
+     * @param out the segment stream
+     * @throws IOException if the segment cannot be written
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeByte(kind);
+        out.writeBoolean(move);
+        out.writeLong(itemId);
+        out.writeInt(index);
+        writeName(out, beforeName);
+        writeState(out, before);
+        writeName(out, afterName);
+        writeState(out, after);
+    }
+
+    /**
+     * Reads an edit written by write
+     * @param in the segment stream
+     * @return the edit
+     * @throws IOException if the segment cannot be read
+     */
+    static Edit read(DataInput in) throws IOException {
+        byte kind = in.readByte();
+        boolean move = in.readBoolean();
+        long itemId = in.readLong();
+        int index = in.readInt();
+        String beforeName = readName(in);
+        int[] before = readState(in);
+        String afterName = readName(in);
+        int[] after = readState(in);
+        return new Edit(kind, move, itemId, index, beforeName, before, afterName, after);
+    }
+
+    private static void writeName(DataOutput out, String name) throws IOException {
+        out.writeBoolean(name != null);
+        if (name != null) out.writeUTF(name);
+    }
+
+    private static String readName(DataInput in) throws IOException {
+        return in.readBoolean() ? FurnitureCatalog.internName(in.readUTF()) : null;
+    }
+
+    private static void writeState(DataOutput out, int[] state) throws IOException {
+        out.writeByte(state == null ? -1 : state.length);
+        if (state == null) return;
+        for (int value : state) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] readState(DataInput in) throws IOException {
+        int length = in.readByte();
+        if (length < 0) return null;
+        int[] state = new int[length];
+        for (int i = 0; i < length; i++) {
+            state[i] = in.readInt();
+        }
+        return state;
+    }
+}
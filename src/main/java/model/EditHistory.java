@@ -0,0 +1,224 @@
+package model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Undo and redo stacks of a design's edits
+ * Each stack keeps its newest edits in memory; when they outgrow half the
+ * memory budget, the older half is written to a compressed segment file and
+ * read back only when undo or redo reaches it. Pushing and popping are O(1)
+ * apart from those occasional segment transfers.
+ * Consecutive moves of one item merge into a single edit until finishMove.
+ */
+final class EditHistory {
+    private static final Logger LOGGER = Logger.getLogger(EditHistory.class.getName());
+
+    private final EditStack undo = new EditStack();
+    private final EditStack redo = new EditStack();
+    // Whether the newest undo edit is a move that the next move of the same item joins
+    private boolean moveOpen = false;
+
+    /**
+     * Creates a history
+     * @param memoryBudget the approximate number of heap bytes the history may use
+     */
+    EditHistory(long memoryBudget) {
+        setMemoryBudget(memoryBudget);
+    }
+
+    /**
+     * Sets the approximate number of heap bytes the history may use, spilling at once if it is over
+     * @param bytes the memory budget, shared by the undo and redo stacks
+     */
+    void setMemoryBudget(long bytes) {
+        undo.setBudget(bytes / 2);
+        redo.setBudget(bytes / 2);
+    }
+
+    /**
+     * Records a new edit, merging it into the previous move when it continues it
+     * Anything that was undone can no longer be redone.
+     * @param edit the edit that was just applied
+     */
+    void record(Edit edit) {
+        Edit last = undo.peek();
+        if (edit.move && moveOpen && last != null && last.move && last.itemId == edit.itemId) {
+            last.after = edit.after;
+            return;
+        }
+        redo.clear();
+        undo.push(edit);
+        moveOpen = edit.move;
+    }
+
+    /**
+     * Ends the current move, so the next move starts a new undo step
+     */
+    void finishMove() {
+        moveOpen = false;
+    }
+
+    /**
+     * Takes the newest edit off the undo stack and keeps it for redo
+     * @return the edit to revert, or null if there is nothing to undo
+     */
+    Edit undo() {
+        moveOpen = false;
+        Edit edit = undo.pop();
+        if (edit != null) redo.push(edit);
+        return edit;
+    }
+
+    /**
+     * Takes the last undone edit off the redo stack and puts it back on the undo stack
+     * @return the edit to apply again, or null if there is nothing to redo
+     */
+    Edit redo() {
+        moveOpen = false;
+        Edit edit = redo.pop();
+        if (edit != null) undo.push(edit);
+        return edit;
+    }
+
+    boolean canUndo() {
+        return !undo.isEmpty();
+    }
+
+    boolean canRedo() {
+        return !redo.isEmpty();
+    }
+
+    /**
+     * Forgets all edits and deletes their segment files
+     */
+    void clear() {
+        undo.clear();
+        redo.clear();
+        moveOpen = false;
+    }
+
+    /**
+     * A stack of edits whose oldest part lives in compressed segment files
+     */
+    private static final class EditStack {
+        private final ArrayDeque<Edit> edits = new ArrayDeque<>();
+        // Older edits than any in memory, oldest segment first
+        private final List<File> segments = new ArrayList<>();
+        private long bytes = 0;
+        private long budget;
+
+        void setBudget(long budget) {
+            this.budget = budget;
+            if (bytes > budget) spill();
+        }
+
+        void push(Edit edit) {
+            edits.addLast(edit);
+            bytes += edit.estimatedSize();
+            if (bytes > budget) spill();
+        }
+
+        Edit peek() {
+            return edits.peekLast();
+        }
+
+        Edit pop() {
+            if (edits.isEmpty() && !segments.isEmpty()) {
+                load();
+            }
+            Edit edit = edits.pollLast();
+            if (edit != null) bytes -= edit.estimatedSize();
+            return edit;
+        }
+
+        boolean isEmpty() {
+            return edits.isEmpty() && segments.isEmpty();
+        }
+
+        void clear() {
+            edits.clear();
+            bytes = 0;
+            discardSegments();
+        }
+
+        /**
+         * Writes the oldest edits in memory to a new segment, down to half the budget
+         * The newest edit always stays in memory, so it can still absorb a move.
+         */
+        private void spill() {
+            List<Edit> oldest = new ArrayList<>();
+            long spilled = 0;
+            while (edits.size() > 1 && bytes - spilled > budget / 2) {
+                Edit edit = edits.pollFirst();
+                oldest.add(edit);
+                spilled += edit.estimatedSize();
+            }
+            if (oldest.isEmpty()) return;
+            bytes -= spilled;
+
+            File segment = null;
+            try {
+                segment = File.createTempFile("design-history-", ".gz");
+                segment.deleteOnExit();
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                        new GZIPOutputStream(new FileOutputStream(segment), 1 << 16)))) {
+                    out.writeInt(oldest.size());
+                    for (Edit edit : oldest) {
+                        edit.write(out);
+                    }
+                }
+                segments.add(segment);
+            } catch (IOException e) {
+                // Without the segment the older edits cannot be reached either
+                LOGGER.log(Level.WARNING, "Could not save undo history, older steps are dropped: " + e.getMessage(), e);
+                if (segment != null) segment.delete();
+                discardSegments();
+            }
+        }
+
+        /**
+         * Reads the newest segment back into memory and deletes its file
+         */
+        private void load() {
+            File segment = segments.remove(segments.size() - 1);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    new GZIPInputStream(new FileInputStream(segment), 1 << 16)))) {
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    Edit edit = Edit.read(in);
+                    edits.addLast(edit);
+                    bytes += edit.estimatedSize();
+                }
+            } catch (IOException e) {
+                // A partly read segment leaves a gap in the history, so nothing older is usable
+                LOGGER.log(Level.WARNING, "Could not read undo history, older steps are dropped: " + e.getMessage(), e);
+                edits.clear();
+                bytes = 0;
+                discardSegments();
+            } finally {
+                segment.delete();
+            }
+        }
+
+        private void discardSegments() {
+            for (File segment : segments) {
+                segment.delete();
+            }
+            segments.clear();
+        }
+    }
+}
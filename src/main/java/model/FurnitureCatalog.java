@@ -0,0 +1,219 @@
+package model;
+
+import java.awt.Color;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The furniture types the designer knows, loaded once from furniture-catalog.csv
+ * The file is read from the classpath; without it, a built-in copy of the
+ * shipped types is used and a warning is logged.
+ * Types are numbered in file order, so per-type data is a plain array lookup
+ * and views can keep a type instead of comparing names.
+ * Names not in the catalog resolve to a generic box type.
+ */
+public final class FurnitureCatalog {
+    /**
+     * The 3D model a type is built with
+     */
+    public enum Form { TABLE, CHAIR, SOFA, BED, WARDROBE, LAMP, BOX }
+
+    /**
+     * One furniture type with its default size, proportions and color
+     */
+    public static final class Type {
+        private final int ordinal;
+        private final String name;
+        private final Form form;
+        private final int defaultWidth, defaultHeight;
+        private final boolean depthFromHeight;
+        private final int depthDivisor;
+        private final Color color;
+        private final boolean onPalette;
+
+        private Type(int ordinal, String name, Form form, int defaultWidth, int defaultHeight,
+                     boolean depthFromHeight, int depthDivisor, Color color, boolean onPalette) {
+            this.ordinal = ordinal;
+            this.name = name;
+            this.form = form;
+            this.defaultWidth = defaultWidth;
+            this.defaultHeight = defaultHeight;
+            this.depthFromHeight = depthFromHeight;
+            this.depthDivisor = depthDivisor;
+            this.color = color;
+            this.onPalette = onPalette;
+        }
+
+        /**
+         * Gets the position of the type in the catalog; 0 is the generic type
+         */
+        public int getOrdinal() { return ordinal; }
+
+        public String getName() { return name; }
+
+        public Form getForm() { return form; }
+
+        public int getDefaultWidth() { return defaultWidth; }
+
+        public int getDefaultHeight() { return defaultHeight; }
+
+        public Color getColor() { return color; }
+
+        public boolean isOnPalette() { return onPalette; }
+
+        /**
+         * Gets the vertical size of an item of this type
+         * @param width the item width
+         * @param height the item height (its length on the 2D plan)
+         * @return the depth
+         */
+        public int depthFor(int width, int height) {
+            return (depthFromHeight ? height : width) / depthDivisor;
+        }
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(FurnitureCatalog.class.getName());
+    private static final String RESOURCE = "/furniture-catalog.csv";
+
+    // The types shipped in furniture-catalog.csv, used when the resource is not on the classpath
+    private static final String BUILT_IN =
+        "name,form,width,height,depth_of,depth_divisor,color,palette\n"
+        + "Dining Table,TABLE,120,80,width,2,#8B4513,true\n"
+        + "Chair,CHAIR,40,40,width,1,#A0522D,true\n"
+        + "Sofa,SOFA,150,60,width,3,#D2B48C,true\n"
+        + "Coffee Table,TABLE,80,60,width,2,#654321,true\n"
+        + "Bed,BED,160,200,height,4,#CD853F,true\n"
+        + "Wardrobe,WARDROBE,100,50,width,2,#DEB887,true\n"
+        + "Lamp,LAMP,40,40,width,2,#FFC864,false\n"
+        + "Table,TABLE,120,80,width,2,#8B4513,false\n";
+
+    private static final Type GENERIC = new Type(0, "", Form.BOX, 0, 0, false, 2, Color.GRAY, false);
+    private static final Type[] TYPES;
+    private static final Map<String, Type> BY_NAME = new HashMap<>();
+    private static final List<Type> PALETTE;
+
+    static {
+        List<Type> types = new ArrayList<>();
+        types.add(GENERIC);
+        boolean loaded = false;
+        try (InputStream in = FurnitureCatalog.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                LOGGER.warning("Furniture catalog " + RESOURCE + " is not on the classpath, using the built-in types");
+            } else {
+                load(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)), types);
+                loaded = true;
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Could not read the furniture catalog, using the built-in types: "
+                + e.getMessage(), e);
+        }
+        if (!loaded) {
+            // Start over, so a partly read file does not mix with the built-in types
+            types.subList(1, types.size()).clear();
+            BY_NAME.clear();
+            try {
+                load(new BufferedReader(new StringReader(BUILT_IN)), types);
+            } catch (IOException e) {
+                throw new IllegalStateException("Built-in furniture catalog is unreadable", e);
+            }
+        }
+
+        TYPES = types.toArray(new Type[0]);
+        List<Type> palette = new ArrayList<>();
+        for (Type type : TYPES) {
+            if (type.onPalette) palette.add(type);
+        }
+        PALETTE = Collections.unmodifiableList(palette);
+    }
+
+    private FurnitureCatalog() {
+    }
+
+    private static void load(BufferedReader reader, List<Type> types) throws IOException {
+        String line;
+        int lineNumber = 0;
+        boolean header = true;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            if (header) {
+                header = false;
+                continue;
+            }
+
+            String[] fields = line.split(",");
+            try {
+                if (fields.length != 8) throw new IllegalArgumentException("expected 8 fields");
+                String name = fields[0].trim().intern();
+                if (BY_NAME.containsKey(name)) throw new IllegalArgumentException("duplicate type " + name);
+                int divisor = Integer.parseInt(fields[5].trim());
+                if (divisor <= 0) throw new IllegalArgumentException("depth divisor must be positive");
+
+                Type type = new Type(types.size(), name, Form.valueOf(fields[1].trim()),
+                    Integer.parseInt(fields[2].trim()), Integer.parseInt(fields[3].trim()),
+                    fields[4].trim().equals("height"), divisor,
+                    Color.decode(fields[6].trim()), Boolean.parseBoolean(fields[7].trim()));
+                types.add(type);
+                BY_NAME.put(name, type);
+            } catch (IllegalArgumentException e) {
+                LOGGER.warning("Skipping furniture catalog line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Gets the type with a name
+     * @param name the type name
+     * @return the type, or the generic box type if the name is not in the catalog
+     */
+    public static Type get(String name) {
+        Type type = name == null ? null : BY_NAME.get(name);
+        return type != null ? type : GENERIC;
+    }
+
+    /**
+     * Gets the shared instance of a type name
+     * @param name the type name, or null
+     * @return the catalog's own name for known types, the interned name otherwise
+     */
+    public static String internName(String name) {
+        if (name == null) return null;
+        Type type = BY_NAME.get(name);
+        return type != null ? type.name : name.intern();
+    }
+
+    /**
+     * Gets the type at a position in the catalog
+     * @param ordinal the type ordinal
+     * @return the type
+     */
+    public static Type get(int ordinal) {
+        return TYPES[ordinal];
+    }
+
+    /**
+     * Gets the number of types, including the generic type
+     */
+    public static int size() {
+        return TYPES.length;
+    }
+
+    /**
+     * Gets the types offered on the 2D palette, in catalog order
+     */
+    public static List<Type> getPaletteTypes() {
+        return PALETTE;
+    }
+}
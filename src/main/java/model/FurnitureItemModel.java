@@ -1,12 +1,17 @@
 package model;
 
 import java.awt.Color;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Model class for furniture items
  * This class is used by both the 2D and 3D panels
  */
 public class FurnitureItemModel {
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+    
+    // Identifies the item across model events, so views can update it in place
+    private final long id;
     private String name;
     private int x, y, z;
     private int width, height, depth;
@@ -24,14 +29,22 @@ public class FurnitureItemModel {
      * @param color the color
      */
     public FurnitureItemModel(String name, int x, int y, int z, int width, int height, int depth, Color color) {
-        this.name = name;
+        this(NEXT_ID.getAndIncrement(), name, x, y, z, width, height, depth, color);
+    }
+    
+    /**
+     * Recreates an item under the id it had before, as when a deletion is undone
+     */
+    FurnitureItemModel(long id, String name, int x, int y, int z, int width, int height, int depth, Color color) {
+        this.id = id;
+        this.name = FurnitureCatalog.internName(name);
         this.x = x;
         this.y = y;
         this.z = z;
         this.width = width;
         this.height = height;
         this.depth = depth;
-        this.color = color;
+        this.color = ColorPool.get(color);
     }
     
     /**
@@ -51,6 +64,19 @@ public class FurnitureItemModel {
         return new FurnitureItemModel(name, x - 250, 0, y - 200, width, height, depth, color);
     }
     
+    /**
+     * Creates a furniture item model from a saved design item
+     * Saved items keep the model x and z as their x and y; the depth is not
+     * saved and is derived from the type, as for new items
+     * @param item the saved item
+     * @return the model item
+     */
+    public static FurnitureItemModel fromDesign(Design.FurnitureItem item) {
+        int depth = determineFurnitureDepth(item.getType(), item.getWidth(), item.getHeight());
+        return new FurnitureItemModel(item.getType(), item.getX(), 0, item.getY(),
+            item.getWidth(), item.getHeight(), depth, item.getColor());
+    }
+    
     /**
      * Determines an appropriate depth for the furniture based on its type and dimensions
      * @param name the furniture type
@@ -59,29 +85,14 @@ public class FurnitureItemModel {
      * @return an appropriate depth value
      */
     private static int determineFurnitureDepth(String name, int width, int height) {
-        switch (name) {
-            case "Dining Table":
-                return width/2;
-            case "Chair":
-                return width;
-            case "Sofa":
-                return width/3;
-            case "Coffee Table":
-                return width/2;
-            case "Bed":
-                return height/4;
-            case "Wardrobe":
-                return width/2;
-            case "Lamp":
-                return width/2;
-            default:
-                return width/2;
-        }
+        return FurnitureCatalog.get(name).depthFor(width, height);
     }
     
     // Getters and setters
+    public long getId() { return id; }
+    
     public String getName() { return name; }
-    public void setName(String name) { this.name = name; }
+    public void setName(String name) { this.name = FurnitureCatalog.internName(name); }
     
     public int getX() { return x; }
     public void setX(int x) { this.x = x; }
@@ -102,5 +113,5 @@ public class FurnitureItemModel {
     public void setDepth(int depth) { this.depth = depth; }
     
     public Color getColor() { return color; }
-    public void setColor(Color color) { this.color = color; }
+    public void setColor(Color color) { this.color = ColorPool.get(color); }
 }
@@ -0,0 +1,33 @@
+package service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The one pool for background rendering and file work
+ * Thumbnails, the design browser and the image, turntable, vector and
+ * geometry exports all queue their tasks here, so together they use one
+ * thread per core instead of a full pool each. The threads are daemons
+ * below normal priority, which keeps the Event Dispatch Thread responsive.
+ * Tasks must not wait for other tasks on the pool, or it can run out of threads.
+ */
+public final class BackgroundPool {
+    private static final ExecutorService POOL = Executors.newFixedThreadPool(
+        Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "background-worker");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+
+    private BackgroundPool() {
+    }
+
+    /**
+     * Gets the shared pool; it is never shut down
+     * @return the executor
+     */
+    public static ExecutorService get() {
+        return POOL;
+    }
+}
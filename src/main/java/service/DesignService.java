@@ -1,9 +1,13 @@
 package service;
 
 import model.Design;
+import model.DesignSummary;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Properties;
 
 public class DesignService {
     private static final String DESIGNS_DIRECTORY = "designs";
@@ -21,6 +25,52 @@ public class DesignService {
         try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(file))) {
             oos.writeObject(design);
         }
+        saveSummary(DesignSummary.of(design));
+    }
+    
+    /**
+     * Loads the summary of a saved design from its sidecar file
+     * Designs saved before summaries existed, or changed behind the sidecar's
+     * back, are loaded once and get their sidecar written
+     * @param designId the design id
+     * @return the summary
+     * @throws IOException if neither the summary nor the design can be read
+     * @throws ClassNotFoundException if the design has to be loaded and cannot be deserialized
+     */
+    public DesignSummary loadSummary(String designId) throws IOException, ClassNotFoundException {
+        File file = getSummaryFile(designId);
+        if (file.lastModified() >= getDesignFile(designId).lastModified()) {
+            Properties properties = new Properties();
+            try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+                properties.load(reader);
+                return new DesignSummary(designId,
+                    properties.getProperty("name", ""),
+                    properties.getProperty("designer", ""),
+                    Integer.parseInt(properties.getProperty("items", "0")),
+                    Long.parseLong(properties.getProperty("modified", "0")));
+            } catch (IOException | NumberFormatException e) {
+                // Fall through and rebuild the sidecar from the design
+            }
+        }
+        DesignSummary summary = DesignSummary.of(loadDesign(designId));
+        saveSummary(summary);
+        return summary;
+    }
+    
+    private void saveSummary(DesignSummary summary) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("name", summary.getName());
+        properties.setProperty("designer", summary.getDesignerId());
+        properties.setProperty("items", String.valueOf(summary.getItemCount()));
+        properties.setProperty("modified", String.valueOf(summary.getLastModifiedTime()));
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(getSummaryFile(summary.getId())),
+                StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+    }
+    
+    private File getSummaryFile(String designId) {
+        return new File(DESIGNS_DIRECTORY, designId + ".summary");
     }
     
     public Design loadDesign(String designId) throws IOException, ClassNotFoundException {
@@ -30,11 +80,45 @@ public class DesignService {
         }
     }
     
+    /**
+     * Gets the file a design is saved in
+     * @param designId the design id
+     * @return the design file, which may not exist
+     */
+    public File getDesignFile(String designId) {
+        return new File(DESIGNS_DIRECTORY, designId + ".ser");
+    }
+    
+    /**
+     * Gets the directory designs are saved in
+     * @return the designs directory
+     */
+    public File getDesignsDirectory() {
+        return new File(DESIGNS_DIRECTORY);
+    }
+    
+    /**
+     * Lists the ids of all saved designs without loading them
+     * @return the design ids, sorted
+     */
+    public List<String> listDesignIds() {
+        List<String> ids = new ArrayList<>();
+        String[] names = new File(DESIGNS_DIRECTORY).list((dir, name) -> name.endsWith(".ser"));
+        if (names != null) {
+            Arrays.sort(names);
+            for (String name : names) {
+                ids.add(name.substring(0, name.length() - ".ser".length()));
+            }
+        }
+        return ids;
+    }
+    
     public void deleteDesign(String designId) {
         File file = new File(DESIGNS_DIRECTORY, designId + ".ser");
         if (file.exists()) {
             file.delete();
         }
+        getSummaryFile(designId).delete();
     }
     
     public List<Design> getAllDesigns() {
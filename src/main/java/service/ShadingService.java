@@ -0,0 +1,141 @@
+package service;
+
+import model.ColorPool;
+import model.DesignModel;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+/**
+ * Applies the design's lighting settings to colors
+ * Results are cached per packed ARGB value in an open-addressing table, so
+ * shading a color that was already seen costs one lookup and no allocation.
+ * The cache is dropped whenever the model reports LIGHTING_CHANGED.
+ * Shared by the 3D renderers and exports; safe to call from any thread.
+ */
+public class ShadingService implements DesignModel.DesignModelListener {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final DesignModel model;
+
+    // Lighting settings the cached entries were computed with
+    private float lightIntensity;
+    private float contrast;
+    private float ambientRed, ambientGreen, ambientBlue;
+    private boolean settingsLoaded = false;
+
+    // Open-addressing table: keys are the original ARGB values, slots are used when the color is set
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private Color[] shaded = new Color[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /**
+     * Creates a shading service and registers it with the model
+     * @param model the design whose lighting is applied
+     */
+    public ShadingService(DesignModel model) {
+        this.model = model;
+        model.addListener(this);
+    }
+
+    /**
+     * Applies lighting effects to a color based on current lighting settings
+     * @param color The original color
+     * @return The color with lighting effects applied; the same instance for equal inputs
+     */
+    public Color shade(Color color) {
+        return lookup(color.getRGB());
+    }
+
+    /**
+     * Applies lighting effects to a packed color
+     * @param argb the original color as ARGB
+     * @return the lit color as opaque ARGB
+     */
+    public int shade(int argb) {
+        return lookup(argb).getRGB();
+    }
+
+    private synchronized Color lookup(int argb) {
+        int mask = keys.length - 1;
+        int slot = mix(argb) & mask;
+        while (shaded[slot] != null) {
+            if (keys[slot] == argb) {
+                return shaded[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        Color result = compute(argb);
+        keys[slot] = argb;
+        shaded[slot] = result;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void onModelChanged(String changeType) {
+        if (changeType.equals("LIGHTING_CHANGED")) {
+            Arrays.fill(shaded, null);
+            size = 0;
+            settingsLoaded = false;
+        }
+    }
+
+    private Color compute(int argb) {
+        if (!settingsLoaded) {
+            lightIntensity = model.getLightIntensity();
+            contrast = model.getContrast();
+            Color ambientLight = model.getAmbientLightColor();
+            ambientRed = ambientLight.getRed() / 255f;
+            ambientGreen = ambientLight.getGreen() / 255f;
+            ambientBlue = ambientLight.getBlue() / 255f;
+            settingsLoaded = true;
+        }
+
+        // Apply light color influence
+        float r = ((argb >> 16) & 0xFF) / 255f * ambientRed * lightIntensity;
+        float g = ((argb >> 8) & 0xFF) / 255f * ambientGreen * lightIntensity;
+        float b = (argb & 0xFF) / 255f * ambientBlue * lightIntensity;
+
+        // Apply contrast
+        r = 0.5f + (r - 0.5f) * contrast;
+        g = 0.5f + (g - 0.5f) * contrast;
+        b = 0.5f + (b - 0.5f) * contrast;
+
+        // Clamp values
+        r = Math.max(0, Math.min(1, r));
+        g = Math.max(0, Math.min(1, g));
+        b = Math.max(0, Math.min(1, b));
+
+        // Rounded as the float Color constructor does, but shared through the pool
+        return ColorPool.get((int) (r * 255 + 0.5f), (int) (g * 255 + 0.5f), (int) (b * 255 + 0.5f));
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        Color[] oldShaded = shaded;
+        keys = new int[oldKeys.length * 2];
+        shaded = new Color[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldShaded[i] == null) continue;
+            int slot = mix(oldKeys[i]) & mask;
+            while (shaded[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            shaded[slot] = oldShaded[i];
+        }
+    }
+
+    /**
+     * Spreads the color bits so nearby colors do not cluster in the table
+     */
+    private static int mix(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
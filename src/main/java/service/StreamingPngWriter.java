@@ -0,0 +1,135 @@
+package service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes an RGB PNG image row by row
+ * Rows are filtered and compressed as they arrive and flushed in IDAT
+ * chunks of bounded size, so the image never has to exist in memory as a
+ * whole; images far larger than the heap can be written. Rows must be
+ * written from top to bottom, exactly as many as the image is high.
+ */
+public class StreamingPngWriter implements Closeable {
+    private static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+    private static final int CHUNK_SIZE = 1 << 16;
+    // PNG "Sub" filter: each byte minus the same channel of the pixel to its left
+    private static final int FILTER_SUB = 1;
+
+    private final DataOutputStream out;
+    private final int width;
+    private final int height;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final DeflaterOutputStream compressed;
+    private final byte[] line;
+    private int rows = 0;
+
+    /**
+     * Starts a PNG image
+     * @param out the stream the image is written to; closed with the writer
+     * @param width the image width in pixels
+     * @param height the image height in pixels
+     * @throws IOException if the header cannot be written
+     */
+    public StreamingPngWriter(OutputStream out, int width, int height) throws IOException {
+        this.out = new DataOutputStream(out);
+        this.width = width;
+        this.height = height;
+        this.line = new byte[1 + width * 3];
+
+        this.out.write(SIGNATURE);
+        ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+        DataOutputStream fields = new DataOutputStream(header);
+        fields.writeInt(width);
+        fields.writeInt(height);
+        fields.writeByte(8); // bits per channel
+        fields.writeByte(2); // truecolor
+        fields.writeByte(0); // deflate
+        fields.writeByte(0); // adaptive filtering
+        fields.writeByte(0); // not interlaced
+        writeChunk("IHDR", header.toByteArray(), header.size());
+
+        compressed = new DeflaterOutputStream(new IdatStream(), deflater, CHUNK_SIZE);
+    }
+
+    /**
+     * Writes the next row
+     * @param rgb pixels as packed RGB; alpha is ignored
+     * @param offset the index of the row's first pixel in the array
+     * @throws IOException if the row cannot be written
+     */
+    public void writeRow(int[] rgb, int offset) throws IOException {
+        if (rows == height) {
+            throw new IllegalStateException("All " + height + " rows have been written");
+        }
+        line[0] = FILTER_SUB;
+        int previous = 0;
+        for (int x = 0, i = 1; x < width; x++, i += 3) {
+            int pixel = rgb[offset + x];
+            line[i] = (byte) ((pixel >> 16) - (previous >> 16));
+            line[i + 1] = (byte) ((pixel >> 8) - (previous >> 8));
+            line[i + 2] = (byte) (pixel - previous);
+            previous = pixel;
+        }
+        compressed.write(line);
+        rows++;
+    }
+
+    /**
+     * Finishes the image data and writes the end of the file
+     * @throws IOException if the image is incomplete or cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            compressed.finish();
+            writeChunk("IEND", new byte[0], 0);
+            if (rows != height) {
+                throw new IOException("Only " + rows + " of " + height + " rows were written");
+            }
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        out.writeInt(length);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Receives compressed data and emits it as IDAT chunks
+     */
+    private class IdatStream extends OutputStream {
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] data, int offset, int length) throws IOException {
+            if (length == 0) return;
+            if (offset == 0) {
+                writeChunk("IDAT", data, length);
+            } else {
+                byte[] copy = new byte[length];
+                System.arraycopy(data, offset, copy, 0, length);
+                writeChunk("IDAT", copy, length);
+            }
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package service;
+
+import model.Design;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Renders small previews of saved designs and caches them on disk
+ * Thumbnails are stored under a SHA-256 hash of the design file. A design
+ * is only rendered again when its content changes, and identical designs
+ * share one image. Each file's hash is remembered in an index together with
+ * its size and modification time. Listing thousands of unchanged designs
+ * therefore reads no design files at all. Rendering runs on the shared
+ * background pool into offscreen images and needs no display.
+ */
+public class ThumbnailService {
+    /**
+     * Draws a design into an offscreen image
+     * Called from pool threads, so implementations must not touch Swing components
+     */
+    public interface Renderer {
+        /**
+         * Draws a design
+         * @param design the design to draw
+         * @param g graphics context of the thumbnail image
+         * @param width the thumbnail width in pixels
+         * @param height the thumbnail height in pixels
+         */
+        void render(Design design, Graphics2D g, int width, int height);
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(ThumbnailService.class.getName());
+
+    public static final int WIDTH = 160;
+    public static final int HEIGHT = 120;
+
+    private static final String INDEX_FILE = "index.txt";
+
+    private final DesignService designService;
+    private final Renderer renderer;
+    private final File directory;
+
+    // Content hash per design id, valid while the design file keeps its size and modification time
+    private final Map<String, IndexEntry> index = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a thumbnail service caching into the thumbnails folder of the designs directory
+     * @param designService the service the designs are loaded from
+     * @param renderer draws the thumbnail of a design
+     */
+    public ThumbnailService(DesignService designService, Renderer renderer) {
+        this.designService = designService;
+        this.renderer = renderer;
+        this.directory = new File(designService.getDesignsDirectory(), "thumbnails");
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        loadIndex();
+    }
+
+    /**
+     * Gets the thumbnail of a design, rendering and caching it first if needed
+     * @param designId the design id
+     * @return the thumbnail image
+     * @throws IOException if the design or the cache cannot be read or written
+     * @throws ClassNotFoundException if the design file cannot be deserialized
+     */
+    public BufferedImage getThumbnail(String designId) throws IOException, ClassNotFoundException {
+        File cached = cachedFile(designId);
+        if (cached.isFile()) {
+            BufferedImage image = ImageIO.read(cached);
+            if (image != null) {
+                return image;
+            }
+        }
+        return renderToCache(designId, cached);
+    }
+
+    /**
+     * Gets the thumbnail of a design on the background pool
+     * @param designId the design id
+     * @return a future completing with the thumbnail image
+     */
+    public CompletableFuture<BufferedImage> getThumbnailAsync(String designId) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return getThumbnail(designId);
+            } catch (IOException | ClassNotFoundException e) {
+                throw new CompletionException(e);
+            }
+        }, BackgroundPool.get());
+    }
+
+    /**
+     * Renders the missing thumbnails of all saved designs in parallel and waits for them
+     * Thumbnails that no design refers to any more are deleted
+     * @return the number of designs that could not be rendered
+     */
+    public int generateAll() {
+        List<String> ids = designService.listDesignIds();
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            tasks.add(CompletableFuture.runAsync(() -> {
+                try {
+                    File cached = cachedFile(id);
+                    if (!cached.isFile()) {
+                        renderToCache(id, cached);
+                    }
+                } catch (IOException | ClassNotFoundException e) {
+                    throw new CompletionException(e);
+                }
+            }, BackgroundPool.get()));
+        }
+
+        int failed = 0;
+        for (CompletableFuture<Void> task : tasks) {
+            try {
+                task.join();
+            } catch (CompletionException e) {
+                failed++;
+            }
+        }
+
+        // Forget removed designs and the images only they used
+        index.keySet().retainAll(new HashSet<>(ids));
+        Set<String> used = new HashSet<>();
+        for (IndexEntry entry : index.values()) {
+            used.add(entry.hash + ".png");
+        }
+        String[] images = directory.list((dir, name) -> name.endsWith(".png"));
+        if (images != null) {
+            for (String name : images) {
+                if (!used.contains(name)) {
+                    new File(directory, name).delete();
+                }
+            }
+        }
+
+        try {
+            saveIndex();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not save the thumbnail index, unchanged designs will be hashed again: "
+                + e.getMessage(), e);
+        }
+        return failed;
+    }
+
+    private File cachedFile(String designId) throws IOException {
+        return new File(directory, contentHash(designId) + ".png");
+    }
+
+    private BufferedImage renderToCache(String designId, File cached) throws IOException, ClassNotFoundException {
+        Design design = designService.loadDesign(designId);
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            renderer.render(design, g, WIDTH, HEIGHT);
+        } finally {
+            g.dispose();
+        }
+
+        // Written next to the target and moved into place, so readers never see half an image
+        File temp = File.createTempFile("thumbnail", ".tmp", directory);
+        try {
+            ImageIO.write(image, "png", temp);
+            Files.move(temp.toPath(), cached.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            temp.delete();
+        }
+        return image;
+    }
+
+    /**
+     * Gets the SHA-256 of a design file, hashing it only if it changed since it was last seen
+     */
+    private String contentHash(String designId) throws IOException {
+        File file = designService.getDesignFile(designId);
+        long length = file.length();
+        long modified = file.lastModified();
+        IndexEntry entry = index.get(designId);
+        if (entry != null && entry.length == length && entry.modified == modified) {
+            return entry.hash;
+        }
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        byte[] buffer = new byte[8192];
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        StringBuilder hash = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hash.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        index.put(designId, new IndexEntry(length, modified, hash.toString()));
+        return hash.toString();
+    }
+
+    /**
+     * Reads the hash index: one line per design with its id, file size, modification time and hash
+     */
+    private void loadIndex() {
+        File file = new File(directory, INDEX_FILE);
+        if (!file.isFile()) return;
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(" ");
+                if (fields.length != 4) continue;
+                try {
+                    index.put(fields[0], new IndexEntry(Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[3]));
+                } catch (NumberFormatException e) {
+                    // A damaged line only costs hashing that design again
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not read the thumbnail index, designs will be hashed again: "
+                + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Persists the hashes computed so far, so the next session can skip hashing unchanged designs
+     * @throws IOException if the index cannot be written
+     */
+    public synchronized void saveIndex() throws IOException {
+        File temp = File.createTempFile("index", ".tmp", directory);
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, IndexEntry> entry : index.entrySet()) {
+                    IndexEntry value = entry.getValue();
+                    writer.write(entry.getKey() + " " + value.length + " " + value.modified + " " + value.hash);
+                    writer.newLine();
+                }
+            }
+            Files.move(temp.toPath(), new File(directory, INDEX_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            temp.delete();
+        }
+    }
+
+    private static final class IndexEntry {
+        final long length;
+        final long modified;
+        final String hash;
+
+        IndexEntry(long length, long modified, String hash) {
+            this.length = length;
+            this.modified = modified;
+            this.hash = hash;
+        }
+    }
+}
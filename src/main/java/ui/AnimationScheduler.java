@@ -0,0 +1,117 @@
+package ui;
+
+import javax.swing.Timer;
+import java.awt.DisplayMode;
+import java.awt.GraphicsEnvironment;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drives time-based animations from one frame-paced Swing timer
+ * The timer ticks at the display refresh rate and coalesces ticks that
+ * arrive while the Event Dispatch Thread is busy, so slow frames are
+ * dropped rather than queued. Animations advance by the real time elapsed,
+ * so their speed does not depend on timer jitter. Several animations can
+ * run at once; the timer stops as soon as none is left.
+ * All methods must be called on the Event Dispatch Thread.
+ */
+class AnimationScheduler {
+    /**
+     * One running animation
+     */
+    interface Animation {
+        /**
+         * Advances the animation
+         * @param seconds the time since the previous step
+         * @return true to keep running, false when finished
+         */
+        boolean step(double seconds);
+    }
+
+    // Longest step, so a stall does not make animations jump
+    private static final double MAX_STEP_SECONDS = 0.1;
+
+    private final Map<String, Animation> animations = new LinkedHashMap<>();
+    private final Runnable afterFrame;
+    private final Timer timer;
+    private long lastTick;
+
+    /**
+     * Creates a scheduler
+     * @param afterFrame called after each tick in which an animation ran, usually a repaint
+     */
+    AnimationScheduler(Runnable afterFrame) {
+        this.afterFrame = afterFrame;
+        this.timer = new Timer(frameIntervalMillis(), unused -> tick());
+        timer.setCoalesce(true);
+    }
+
+    /**
+     * Starts an animation, replacing any running one with the same name
+     * @param name identifies the animation, e.g. "turntable"
+     * @param animation the animation to run
+     */
+    void start(String name, Animation animation) {
+        animations.put(name, animation);
+        if (!timer.isRunning()) {
+            lastTick = System.nanoTime();
+            timer.start();
+        }
+    }
+
+    /**
+     * Stops an animation where it is
+     * @param name the animation name
+     */
+    void stop(String name) {
+        animations.remove(name);
+        if (animations.isEmpty()) {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Checks whether an animation is running
+     * @param name the animation name
+     * @return true if it is running
+     */
+    boolean isRunning(String name) {
+        return animations.containsKey(name);
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        double seconds = Math.min(MAX_STEP_SECONDS, (now - lastTick) / 1e9);
+        lastTick = now;
+
+        // Copy first, so animations may start or stop others while stepping
+        List<Map.Entry<String, Animation>> running = new ArrayList<>(animations.entrySet());
+        for (Map.Entry<String, Animation> entry : running) {
+            if (!entry.getValue().step(seconds) && animations.get(entry.getKey()) == entry.getValue()) {
+                animations.remove(entry.getKey());
+            }
+        }
+        if (animations.isEmpty()) {
+            timer.stop();
+        }
+        afterFrame.run();
+    }
+
+    /**
+     * Gets the frame interval of the default screen, falling back to 60 Hz
+     * @return the interval in milliseconds
+     */
+    static int frameIntervalMillis() {
+        int refreshRate = 60;
+        if (!GraphicsEnvironment.isHeadless()) {
+            DisplayMode mode = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice().getDisplayMode();
+            if (mode.getRefreshRate() != DisplayMode.REFRESH_RATE_UNKNOWN) {
+                refreshRate = mode.getRefreshRate();
+            }
+        }
+        return Math.max(1, 1000 / refreshRate);
+    }
+}
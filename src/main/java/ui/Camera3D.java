@@ -0,0 +1,163 @@
+package ui;
+
+import java.awt.geom.AffineTransform;
+
+/**
+ * Immutable view/projection for the 3D panel
+ * World space has x to the right of the 2D plan, y up and z towards the
+ * bottom of the 2D plan. The camera starts looking straight down on the plan,
+ * turns around the vertical axis by yRotation, tilts towards the viewer by
+ * xRotation and rolls by zRotation; the projection is orthographic and scaled by zoom.
+ */
+final class Camera3D {
+    // Rows of the world-to-camera rotation; camera z points towards the viewer
+    final double m00, m01, m02;
+    final double m10, m11, m12;
+    final double m20, m21, m22;
+    final double zoom;
+    final double centerX, centerY;
+
+    /**
+     * Creates a camera
+     * @param xRotation tilt away from the top-down view in degrees
+     * @param yRotation turn around the vertical axis in degrees
+     * @param zRotation roll around the view axis in degrees
+     * @param zoom pixels per world unit
+     * @param centerX screen x of the world origin
+     * @param centerY screen y of the world origin
+     */
+    Camera3D(float xRotation, float yRotation, float zRotation, float zoom, double centerX, double centerY) {
+        this.zoom = zoom;
+        this.centerX = centerX;
+        this.centerY = centerY;
+
+        double ys = Math.sin(Math.toRadians(yRotation)), yc = Math.cos(Math.toRadians(yRotation));
+        double ts = Math.sin(Math.toRadians(xRotation)), tc = Math.cos(Math.toRadians(xRotation));
+        double rs = Math.sin(Math.toRadians(-zRotation)), rc = Math.cos(Math.toRadians(-zRotation));
+
+        // Yaw around world y, then map the plan to the screen (x right, -z up, y towards the viewer)
+        double[][] m = {
+            { yc, 0, -ys },
+            { -ys, 0, -yc },
+            { 0, 1, 0 }
+        };
+        // Tilt around the camera x axis, so the near side of the room comes into view
+        m = multiply(new double[][] { { 1, 0, 0 }, { 0, tc, ts }, { 0, -ts, tc } }, m);
+        // Roll around the view axis
+        m = multiply(new double[][] { { rc, -rs, 0 }, { rs, rc, 0 }, { 0, 0, 1 } }, m);
+
+        m00 = m[0][0]; m01 = m[0][1]; m02 = m[0][2];
+        m10 = m[1][0]; m11 = m[1][1]; m12 = m[1][2];
+        m20 = m[2][0]; m21 = m[2][1]; m22 = m[2][2];
+    }
+
+    private Camera3D(Camera3D source, double zoom, double centerX, double centerY) {
+        m00 = source.m00; m01 = source.m01; m02 = source.m02;
+        m10 = source.m10; m11 = source.m11; m12 = source.m12;
+        m20 = source.m20; m21 = source.m21; m22 = source.m22;
+        this.zoom = zoom;
+        this.centerX = centerX;
+        this.centerY = centerY;
+    }
+
+    /**
+     * Gets the same view for a frame rendered at a different resolution
+     * @param factor the resolution factor
+     * @return the scaled camera
+     */
+    Camera3D scaled(double factor) {
+        return factor == 1 ? this : new Camera3D(this, zoom * factor, centerX * factor, centerY * factor);
+    }
+
+    /**
+     * Gets the same view with the screen origin moved, for drawing one tile of a larger image
+     * @param x the screen x that becomes the left edge
+     * @param y the screen y that becomes the top edge
+     * @return the translated camera
+     */
+    Camera3D translated(double x, double y) {
+        return new Camera3D(this, zoom, centerX - x, centerY - y);
+    }
+
+    /**
+     * Gets the screen x of a world point
+     */
+    double screenX(double x, double y, double z) {
+        return centerX + zoom * (m00 * x + m01 * y + m02 * z);
+    }
+
+    /**
+     * Gets the screen y of a world point
+     */
+    double screenY(double x, double y, double z) {
+        return centerY - zoom * (m10 * x + m11 * y + m12 * z);
+    }
+
+    /**
+     * Gets the camera-space depth of a world point; larger values are closer to the viewer
+     */
+    double depth(double x, double y, double z) {
+        return m20 * x + m21 * y + m22 * z;
+    }
+
+    /**
+     * Gets the world-space ray through a screen point
+     * Under the orthographic projection every ray points straight into the screen
+     * @return origin x, y, z on the plane of depth 0, then direction x, y, z
+     */
+    double[] ray(double screenX, double screenY) {
+        double cx = (screenX - centerX) / zoom;
+        double cy = (centerY - screenY) / zoom;
+        return new double[] {
+            cx * m00 + cy * m10, cx * m01 + cy * m11, cx * m02 + cy * m12,
+            -m20, -m21, -m22
+        };
+    }
+
+    /**
+     * Checks whether a surface with the given world normal faces the viewer
+     */
+    boolean isFrontFacing(double nx, double ny, double nz) {
+        return m20 * nx + m21 * ny + m22 * nz > 1e-6;
+    }
+
+    /**
+     * Gets the affine mapping from floor coordinates (world x, world z) to the screen
+     * Under an orthographic projection the floor plane maps to the screen affinely
+     * @return the floor-to-screen transform
+     */
+    AffineTransform floorTransform() {
+        return new AffineTransform(zoom * m00, -zoom * m10, zoom * m02, -zoom * m12, centerX, centerY);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Camera3D)) return false;
+        Camera3D other = (Camera3D) o;
+        return m00 == other.m00 && m01 == other.m01 && m02 == other.m02
+            && m10 == other.m10 && m11 == other.m11 && m12 == other.m12
+            && m20 == other.m20 && m21 == other.m21 && m22 == other.m22
+            && zoom == other.zoom && centerX == other.centerX && centerY == other.centerY;
+    }
+
+    @Override
+    public int hashCode() {
+        long bits = Double.doubleToLongBits(m00);
+        bits = 31 * bits + Double.doubleToLongBits(m01);
+        bits = 31 * bits + Double.doubleToLongBits(m11);
+        bits = 31 * bits + Double.doubleToLongBits(zoom);
+        bits = 31 * bits + Double.doubleToLongBits(centerX);
+        bits = 31 * bits + Double.doubleToLongBits(centerY);
+        return (int) (bits ^ (bits >>> 32));
+    }
+
+    private static double[][] multiply(double[][] a, double[][] b) {
+        double[][] r = new double[3][3];
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                r[i][j] = a[i][0] * b[0][j] + a[i][1] * b[1][j] + a[i][2] * b[2][j];
+            }
+        }
+        return r;
+    }
+}
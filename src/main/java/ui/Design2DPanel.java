@@ -3,65 +3,162 @@ package ui;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import model.ColorPool;
 import model.DesignModel;
+import model.FurnitureCatalog;
 import model.FurnitureItemModel;
 
 public class Design2DPanel extends JPanel implements DesignModel.DesignModelListener {
     private DesignModel model;
     private List<FurnitureItem> furnitureItems;
     private FurnitureItem selectedItem;
-    private Point dragStart;
+    private Point2D.Double dragStart;
+    private Point panStart;
     private JPanel toolPanel;
+    private JPanel drawingArea;
+    
+    // Offset of the room's top-left corner inside the drawing area
+    static final int ROOM_OFFSET = 50;
+    
+    // Zoom limits and the smallest on-screen font size at which labels are still drawn
+    private static final double MIN_SCALE = 0.01;
+    private static final double MAX_SCALE = 8.0;
+    private static final float MIN_LABEL_PIXELS = 7.0f;
+    
+    // View transform: screen = world * viewScale + (viewX, viewY)
+    private double viewScale = 1.0;
+    private double viewX = 0;
+    private double viewY = 0;
+    
+    // Spatial index over the items, used for viewport culling and hit testing
+    private final SpatialGrid<FurnitureItem> itemIndex = new SpatialGrid<>(256);
+    private final List<FurnitureItem> visibleItems = new ArrayList<>();
+    private int nextOrder = 0;
+    
+    // Above this many items, unselected furniture is composed from the tile pyramid
+    private static final int TILE_THRESHOLD = 2000;
+    private final TilePyramid tilePyramid;
+    
+    // Copy of the plan read by the tile renderers, kept up to date item by item; null until tiles are used
+    private PlanCopy planCopy;
+    
+    // Drag input is applied locally and pushed to the model at most once per display frame
+    private final Timer dragCommitTimer;
+    private boolean dragCommitPending = false;
+    private boolean committingDrag = false;
+    private boolean dragging = false;
+    
+    // Changes that arrived while the panel was hidden, applied in one pass when it is shown again
+    private boolean itemsChangedWhileHidden = false;
+    private boolean roomChangedWhileHidden = false;
+    
+    // Cached static layer (background, room fill and outline), rebuilt only on room or view changes
+    private BufferedImage roomLayer;
+    private boolean roomLayerValid = false;
+    private double roomLayerScale, roomLayerX, roomLayerY;
 
     public Design2DPanel(DesignModel model) {
         this.model = model;
         model.addListener(this);
         setLayout(new BorderLayout());
         furnitureItems = new ArrayList<>();
+        tilePyramid = new TilePyramid(Math.min(128L << 20, Runtime.getRuntime().maxMemory() / 8),
+            () -> drawingArea.repaint());
+        dragCommitTimer = new Timer(AnimationScheduler.frameIntervalMillis(), unused -> {
+            if (dragCommitPending) {
+                commitDrag();
+            } else {
+                ((Timer) unused.getSource()).stop();
+            }
+        });
+        dragCommitTimer.setCoalesce(true);
         
         // Main drawing area
-        JPanel drawingArea = new JPanel() {
+        drawingArea = new JPanel() {
             @Override
             protected void paintComponent(Graphics g) {
-                super.paintComponent(g);
                 Graphics2D g2d = (Graphics2D) g;
-                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
                 
-                        // Draw room outline
-                g2d.setColor(model.getRoomColor());
-                g2d.fillRect(50, 50, model.getRoomWidth(), model.getRoomLength());
-                g2d.setColor(Color.BLACK);
-                g2d.drawRect(50, 50, model.getRoomWidth(), model.getRoomLength());
+                // Static room layer replaces the background fill and room drawing
+                g2d.drawImage(getRoomLayer(this), 0, 0, null);
                 
-                // Draw furniture items
-                for (FurnitureItem item : furnitureItems) {
-                    item.draw(g2d);
+                // Antialiasing is skipped while dragging and restored when the mouse is released
+                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                    dragging ? RenderingHints.VALUE_ANTIALIAS_OFF : RenderingHints.VALUE_ANTIALIAS_ON);
+                
+                // Draw only the furniture items that intersect the viewport
+                AffineTransform screenTransform = g2d.getTransform();
+                g2d.translate(viewX, viewY);
+                g2d.scale(viewScale, viewScale);
+                boolean drawLabels = g2d.getFont().getSize2D() * viewScale >= MIN_LABEL_PIXELS;
+                
+                if (itemIndex.size() > TILE_THRESHOLD) {
+                    // Large plans: cached tiles for everything but the live selection
+                    g2d.setTransform(screenTransform);
+                    tilePyramid.paint(g2d, getPlanCopy(), selectedItem != null ? selectedItem.order : -1,
+                        viewScale, viewX, viewY, getWidth(), getHeight());
+                    g2d.translate(viewX, viewY);
+                    g2d.scale(viewScale, viewScale);
+                    if (selectedItem != null) {
+                        selectedItem.draw(g2d, drawLabels);
+                    }
+                } else {
+                    visibleItems.clear();
+                    itemIndex.query(getVisibleWorldBounds(this), visibleItems);
+                    visibleItems.sort(Comparator.comparingInt(item -> item.order));
+                    for (FurnitureItem item : visibleItems) {
+                        item.draw(g2d, drawLabels);
+                    }
                 }
+                g2d.setTransform(screenTransform);
             }
         };
         drawingArea.setBackground(new Color(240, 240, 240));
         drawingArea.addMouseListener(new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
-                selectedItem = null;
-                dragStart = e.getPoint();
+                dragStart = null;
+                panStart = null;
                 
                 // Check if an item was clicked
-                for (int i = furnitureItems.size() - 1; i >= 0; i--) {
-                    if (furnitureItems.get(i).contains(e.getPoint())) {
-                        selectedItem = furnitureItems.get(i);
-                        break;
-                    }
+                Point2D.Double world = toWorld(e.getPoint());
+                selectItem(SwingUtilities.isLeftMouseButton(e) ? findItemAt(world) : null);
+                
+                if (selectedItem != null) {
+                    dragStart = world;
+                } else {
+                    // Dragging empty space or with the middle/right button pans the view
+                    panStart = e.getPoint();
                 }
                 repaint();
             }
             
             @Override
             public void mouseReleased(MouseEvent e) {
+                // Final commit so the model ends up at the drop position
+                dragCommitTimer.stop();
+                if (dragCommitPending) {
+                    commitDrag();
+                }
+                model.finishMove();
                 dragStart = null;
+                panStart = null;
+                dragging = false;
                 repaint();
             }
         });
@@ -69,126 +166,414 @@ public class Design2DPanel extends JPanel implements DesignModel.DesignModelList
         drawingArea.addMouseMotionListener(new MouseMotionAdapter() {
             @Override
             public void mouseDragged(MouseEvent e) {
-                if (selectedItem != null && dragStart != null) {
-                    int dx = e.getX() - dragStart.x;
-                    int dy = e.getY() - dragStart.y;
+                dragging = true;
+                if (panStart != null) {
+                    viewX += e.getX() - panStart.x;
+                    viewY += e.getY() - panStart.y;
+                    panStart = e.getPoint();
+                    drawingArea.repaint();
+                } else if (selectedItem != null && dragStart != null) {
+                    Point2D.Double world = toWorld(e.getPoint());
+                    int dx = (int) (world.x - dragStart.x);
+                    int dy = (int) (world.y - dragStart.y);
+                    if (dx == 0 && dy == 0) return;
+                    Rectangle before = selectedItem.getBounds();
                     selectedItem.move(dx, dy);
                     
-                    // Update the model with the new position
-                    for (FurnitureItemModel modelItem : model.getFurnitureItems()) {
-                        if (modelItem.getName().equals(selectedItem.name) && 
-                            modelItem.getX() + 250 == selectedItem.x - dx && 
-                            modelItem.getZ() + 200 == selectedItem.y - dy) {
-                            modelItem.setX(selectedItem.x - 250);
-                            modelItem.setZ(selectedItem.y - 200);
-                            // This will notify listeners with "ITEM_UPDATED"
-                            model.updateFurnitureItem(modelItem);
-                            break;
-                        }
-                    }
+                    // Keep the sub-unit remainder so slow drags at low zoom still move
+                    dragStart.x += dx;
+                    dragStart.y += dy;
                     
-                    dragStart = e.getPoint();
-                    repaint();
+                    // The preview is drawn from the local item; the model catches up on the next frame
+                    dragCommitPending = true;
+                    if (!dragCommitTimer.isRunning()) {
+                        dragCommitTimer.start();
+                    }
+                    repaintWorld(before.union(selectedItem.getBounds()));
                 }
             }
         });
         
+        // Zoom around the mouse pointer
+        drawingArea.addMouseWheelListener(e -> {
+            double newScale = viewScale * Math.pow(1.1, -e.getPreciseWheelRotation());
+            newScale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, newScale));
+            double worldX = (e.getX() - viewX) / viewScale;
+            double worldY = (e.getY() - viewY) / viewScale;
+            viewScale = newScale;
+            viewX = e.getX() - worldX * viewScale;
+            viewY = e.getY() - worldY * viewScale;
+            drawingArea.repaint();
+        });
+        
         // Furniture palette
         toolPanel = new JPanel();
         toolPanel.setLayout(new GridLayout(0, 1, 5, 5));
         toolPanel.setBorder(BorderFactory.createTitledBorder("Furniture"));
         
         // Add furniture types
-        addFurnitureButton("Dining Table", new Color(139, 69, 19));
-        addFurnitureButton("Chair", new Color(160, 82, 45));
-        addFurnitureButton("Sofa", new Color(210, 180, 140));
-        addFurnitureButton("Coffee Table", new Color(101, 67, 33));
-        addFurnitureButton("Bed", new Color(205, 133, 63));
-        addFurnitureButton("Wardrobe", new Color(222, 184, 135));
+        for (FurnitureCatalog.Type type : FurnitureCatalog.getPaletteTypes()) {
+            addFurnitureButton(type);
+        }
         
         add(drawingArea, BorderLayout.CENTER);
-        add(toolPanel, BorderLayout.EAST);
+        // A large catalog scrolls instead of stretching the panel
+        JScrollPane toolScroll = new JScrollPane(toolPanel,
+            JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED, JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
+        toolScroll.setBorder(null);
+        add(toolScroll, BorderLayout.EAST);
+        
+        // Catch up on model changes once the tab becomes visible again
+        addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 && isShowing()) {
+                resumeAfterHidden();
+            }
+        });
     }
     
-    private void addFurnitureButton(String name, Color color) {
-        JButton button = new JButton(name);
-        button.setBackground(color);
+    private void addFurnitureButton(FurnitureCatalog.Type type) {
+        JButton button = new JButton(type.getName());
+        button.setBackground(type.getColor());
         button.setForeground(Color.WHITE);
         button.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                createFurnitureItem(name, color);
+                createFurnitureItem(type);
             }
         });
         toolPanel.add(button);
     }
     
-    private void createFurnitureItem(String name, Color color) {
+    private void createFurnitureItem(FurnitureCatalog.Type type) {
         FurnitureItem item = null;
         FurnitureItemModel modelItem = null;
+        String name = type.getName();
+        Color color = type.getColor();
         int x = 100;
         int y = 100;
-        int width = 0;
-        int height = 0;
-        
-        switch (name) {
-            case "Dining Table":
-                width = 120;
-                height = 80;
-                break;
-            case "Chair":
-                width = 40;
-                height = 40;
-                break;
-            case "Sofa":
-                width = 150;
-                height = 60;
-                break;
-            case "Coffee Table":
-                width = 80;
-                height = 60;
-                break;
-            case "Bed":
-                width = 160;
-                height = 200;
-                break;
-            case "Wardrobe":
-                width = 100;
-                height = 50;
-                break;
-        }
+        int width = type.getDefaultWidth();
+        int height = type.getDefaultHeight();
         
         if (width > 0 && height > 0) {
             // Create the 2D item
             item = new FurnitureItem(x, y, width, height, color, name);
-            furnitureItems.add(item);
             
             // Create and add the model item
             modelItem = FurnitureItemModel.from2D(name, x, y, width, height, color);
+            item.modelItem = modelItem;
+            addLocalItem(item);
+            updatePlan(item);
+            invalidatePlan(item.getBounds());
             model.addFurnitureItem(modelItem);
             
             repaint();
         }
     }
     
+    /**
+     * Gets the cached static room layer, redrawing it if it was invalidated
+     * or the drawing area has been panned or zoomed; the image itself is only
+     * allocated again when the drawing area is resized
+     * @param area the drawing area the layer is composited into
+     * @return an opaque image the size of the drawing area
+     */
+    private BufferedImage getRoomLayer(JComponent area) {
+        int width = Math.max(1, area.getWidth());
+        int height = Math.max(1, area.getHeight());
+        if (roomLayer == null || roomLayer.getWidth() != width || roomLayer.getHeight() != height) {
+            // Only a resize needs a new image; panning and zooming redraw into the existing one
+            GraphicsConfiguration gc = area.getGraphicsConfiguration();
+            roomLayer = gc != null
+                ? gc.createCompatibleImage(width, height, Transparency.OPAQUE)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            roomLayerValid = false;
+        }
+        if (!roomLayerValid || roomLayerScale != viewScale || roomLayerX != viewX || roomLayerY != viewY) {
+            Graphics2D g2d = roomLayer.createGraphics();
+            try {
+                g2d.setColor(area.getBackground());
+                g2d.fillRect(0, 0, width, height);
+                g2d.translate(viewX, viewY);
+                g2d.scale(viewScale, viewScale);
+                g2d.translate(ROOM_OFFSET, ROOM_OFFSET);
+                drawRoom(g2d);
+            } finally {
+                g2d.dispose();
+            }
+            roomLayerScale = viewScale;
+            roomLayerX = viewX;
+            roomLayerY = viewY;
+            roomLayerValid = true;
+        }
+        return roomLayer;
+    }
+    
+    /**
+     * Draws the static parts of the room: floor fill and outline
+     * @param g2d graphics context with the origin at the room's top-left corner
+     */
+    private void drawRoom(Graphics2D g2d) {
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        Shape room = createRoomShape(model.getRoomShape(), model.getRoomWidth(), model.getRoomLength());
+        g2d.setColor(model.getRoomColor());
+        g2d.fill(room);
+        g2d.setColor(Color.BLACK);
+        g2d.draw(room);
+    }
+    
+    /**
+     * Builds the floor outline for a room shape, matching the 3D view
+     * @param shape the room shape (Rectangle, Square or L-Shape)
+     * @param width the room width
+     * @param length the room length
+     * @return the room outline with its top-left corner at the origin
+     */
+    static Shape createRoomShape(String shape, int width, int length) {
+        switch (shape) {
+            case "Square":
+                int size = Math.max(width, length);
+                return new Rectangle(0, 0, size, size);
+            case "L-Shape":
+                // Inner corner is cut out of the far side, as in the 3D view
+                int shortWidth = width * 2/3;
+                int shortLength = length * 2/3;
+                Area area = new Area(new Rectangle(0, 0, width, length));
+                area.subtract(new Area(new Rectangle(width - shortWidth, length - shortLength, shortWidth, shortLength)));
+                return area;
+            case "Rectangle":
+            default:
+                return new Rectangle(0, 0, width, length);
+        }
+    }
+    
+    /**
+     * Converts a point in drawing area pixels to world coordinates
+     * @param p the screen point
+     * @return the corresponding world point
+     */
+    private Point2D.Double toWorld(Point p) {
+        return new Point2D.Double((p.x - viewX) / viewScale, (p.y - viewY) / viewScale);
+    }
+    
+    /**
+     * Gets the part of the world that is visible in the drawing area
+     * @param area the drawing area
+     * @return the visible world rectangle
+     */
+    private Rectangle getVisibleWorldBounds(JComponent area) {
+        int x = (int) Math.floor(-viewX / viewScale);
+        int y = (int) Math.floor(-viewY / viewScale);
+        int width = (int) Math.ceil(area.getWidth() / viewScale) + 1;
+        int height = (int) Math.ceil(area.getHeight() / viewScale) + 1;
+        return new Rectangle(x, y, width, height);
+    }
+    
+    /**
+     * Finds the topmost item under a world point
+     * @param world the point in world coordinates
+     * @return the item, or null if there is none
+     */
+    private FurnitureItem findItemAt(Point2D.Double world) {
+        List<FurnitureItem> candidates = new ArrayList<>();
+        itemIndex.query(new Rectangle((int) Math.floor(world.x), (int) Math.floor(world.y), 1, 1), candidates);
+        
+        FurnitureItem found = null;
+        for (FurnitureItem item : candidates) {
+            if (item.contains(world) && (found == null || item.order > found.order)) {
+                found = item;
+            }
+        }
+        return found;
+    }
+    
+    /**
+     * Changes the selection; the selected item is drawn live rather than from tiles
+     * The plan copy is left alone: tiles skip the selected item when they render,
+     * so only the tiles under the old and new selection are re-rendered.
+     * The model holds the selection shared with the 3D view, and is told about the change
+     * @param item the item to select, or null to clear the selection
+     */
+    private void selectItem(FurnitureItem item) {
+        if (item == selectedItem) return;
+        showSelection(item);
+        model.setSelectedItem(item != null ? item.modelItem : null);
+    }
+    
+    /**
+     * Changes the local selection and re-renders the tiles under the old and new selection
+     * @param item the item to select, or null to clear the selection
+     */
+    private void showSelection(FurnitureItem item) {
+        if (item == selectedItem) return;
+        FurnitureItem previous = selectedItem;
+        selectedItem = item;
+        if (previous != null) {
+            invalidatePlan(previous.getBounds());
+        }
+        if (item != null) {
+            invalidatePlan(item.getBounds());
+        }
+    }
+    
+    /**
+     * Selects the local item of the model's selection, after another view changed it
+     * The model already holds the selection and is not told again, so a local
+     * list that is out of date can never clear what the other view selected;
+     * items changed while the panel was hidden are synchronized first.
+     */
+    private void followModelSelection() {
+        if (itemsChangedWhileHidden) {
+            itemsChangedWhileHidden = false;
+            syncWithModel();
+        }
+        FurnitureItemModel selectedModel = model.getSelectedItem();
+        FurnitureItem item = null;
+        if (selectedModel != null) {
+            for (FurnitureItem candidate : furnitureItems) {
+                if (candidate.modelItem == selectedModel) {
+                    item = candidate;
+                    break;
+                }
+            }
+        }
+        showSelection(item);
+        repaint();
+    }
+    
+    /**
+     * Copies positions, sizes and colors that other views changed in the model
+     * Only the items that differ are re-indexed and have their tiles invalidated
+     */
+    private void refreshFromModel() {
+        for (FurnitureItem item : furnitureItems) {
+            FurnitureItemModel modelItem = item.modelItem;
+            if (modelItem == null) continue;
+            int x = modelItem.getX() + 250;
+            int y = modelItem.getZ() + 200;
+            if (item.x == x && item.y == y && item.width == modelItem.getWidth()
+                && item.height == modelItem.getHeight() && item.color.equals(modelItem.getColor())
+                && item.name.equals(modelItem.getName())) {
+                continue;
+            }
+            Rectangle before = item.getBounds();
+            item.x = x;
+            item.y = y;
+            item.width = modelItem.getWidth();
+            item.height = modelItem.getHeight();
+            item.color = modelItem.getColor();
+            item.name = modelItem.getName();
+            itemIndex.put(item, item.x, item.y, item.width, item.height);
+            updatePlan(item);
+            invalidatePlan(before.union(item.getBounds()));
+        }
+        repaint();
+    }
+    
+    /**
+     * Marks part of the plan as changed, so the tiles covering it are re-rendered
+     * @param world the changed world area, or null if the whole plan changed
+     */
+    private void invalidatePlan(Rectangle world) {
+        if (world == null) {
+            tilePyramid.invalidateAll();
+        } else {
+            // Grow by the outline stroke so no edge pixels are left behind
+            tilePyramid.invalidate(new Rectangle(world.x - 2, world.y - 2, world.width + 4, world.height + 4));
+        }
+    }
+    
+    /**
+     * Copies an added or changed item into the plan read by the tile renderers
+     * @param item the item that changed
+     */
+    private void updatePlan(FurnitureItem item) {
+        if (planCopy != null) {
+            planCopy.put(item);
+        }
+    }
+    
+    /**
+     * Gets the plan copy used by the tile renderers, building it on first use or after a font change
+     * @return the current plan copy
+     */
+    private PlanCopy getPlanCopy() {
+        if (planCopy == null || planCopy.font != drawingArea.getFont()) {
+            if (planCopy != null) {
+                tilePyramid.invalidateAll();
+            }
+            planCopy = new PlanCopy(furnitureItems, drawingArea.getFont());
+        }
+        return planCopy;
+    }
+    
+    /**
+     * Captures the whole plan for a high-resolution export
+     * The room and every item are fit into the image with a margin. The
+     * returned source draws from a copy of the plan taken now, so it can
+     * render on pool threads while editing continues.
+     * @param width the image width in pixels
+     * @param height the image height in pixels
+     * @return the source that draws the tiles of the image
+     */
+    TiledImageExporter.TileSource createExportSource(int width, int height) {
+        resumeAfterHidden();
+        Shape room = AffineTransform.getTranslateInstance(ROOM_OFFSET, ROOM_OFFSET)
+            .createTransformedShape(createRoomShape(model.getRoomShape(), model.getRoomWidth(), model.getRoomLength()));
+        Color roomColor = model.getRoomColor();
+        Color background = drawingArea.getBackground();
+        PlanCopy plan = new PlanCopy(furnitureItems, drawingArea.getFont());
+
+        Rectangle2D bounds = room.getBounds2D();
+        for (FurnitureItem item : furnitureItems) {
+            bounds.add(new Rectangle2D.Double(item.x, item.y, item.width, item.height));
+        }
+        double margin = Math.min(width, height) / 20.0;
+        double scale = Math.min((width - margin * 2) / bounds.getWidth(), (height - margin * 2) / bounds.getHeight());
+        // Image = world * scale + offset, with the plan centered
+        double offsetX = width / 2.0 - bounds.getCenterX() * scale;
+        double offsetY = height / 2.0 - bounds.getCenterY() * scale;
+        // Outlines get one pixel per thousand pixels of image, about their weight on screen
+        BasicStroke outline = new BasicStroke((float) (Math.max(1, Math.min(width, height) / 1000.0) / scale));
+
+        return (g, x, y, tileWidth, tileHeight) -> {
+            g.setColor(background);
+            g.fillRect(0, 0, tileWidth, tileHeight);
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.translate(offsetX - x, offsetY - y);
+            g.scale(scale, scale);
+
+            g.setColor(roomColor);
+            g.fill(room);
+            g.setColor(Color.BLACK);
+            g.setStroke(outline);
+            g.draw(room);
+
+            Rectangle2D world = new Rectangle2D.Double((x - offsetX) / scale, (y - offsetY) / scale,
+                tileWidth / scale, tileHeight / scale);
+            plan.render(g, world, scale, -1);
+        };
+    }
+
+    /**
+     * Marks the cached room layer as outdated so it is redrawn on the next paint
+     */
+    private void invalidateRoomLayer() {
+        roomLayerValid = false;
+        drawingArea.repaint();
+    }
+    
     /**
      * Deletes the currently selected item
      */
     public void deleteSelectedItem() {
         if (selectedItem != null) {
-            // Find the corresponding model item
-            for (FurnitureItemModel modelItem : model.getFurnitureItems()) {
-                if (modelItem.getName().equals(selectedItem.name) && 
-                    modelItem.getX() + 250 == selectedItem.x && 
-                    modelItem.getZ() + 200 == selectedItem.y) {
-                    model.removeFurnitureItem(modelItem);
-                    break;
-                }
+            FurnitureItem removed = selectedItem;
+            if (dragCommitPending) {
+                commitDrag();
             }
-            
-            // Remove from local list
-            furnitureItems.remove(selectedItem);
-            selectedItem = null;
+            // The model announces ITEM_REMOVED, which drops the local item and its tiles
+            model.removeFurnitureItem(removed.modelItem);
             repaint();
         }
     }
@@ -208,40 +593,109 @@ public class Design2DPanel extends JPanel implements DesignModel.DesignModelList
     public FurnitureItemModel getSelectedItemModel() {
         if (selectedItem == null) return null;
         
-        // Find the corresponding model item
-        for (FurnitureItemModel modelItem : model.getFurnitureItems()) {
-            if (modelItem.getName().equals(selectedItem.name) && 
-                modelItem.getX() + 250 == selectedItem.x && 
-                modelItem.getZ() + 200 == selectedItem.y) {
-                return modelItem;
-            }
+        // Make sure the model reflects any drag still waiting for the next frame
+        if (dragCommitPending) {
+            commitDrag();
         }
+        return selectedItem.modelItem;
+    }
+    
+    /**
+     * Pushes the locally dragged position of the selected item to the model
+     */
+    private void commitDrag() {
+        dragCommitPending = false;
+        if (selectedItem == null || selectedItem.modelItem == null) return;
         
-        return null;
+        FurnitureItemModel modelItem = selectedItem.modelItem;
+        committingDrag = true;
+        try {
+            // This will notify listeners with "ITEM_UPDATED"; the moves of one drag form one undo step
+            model.moveFurnitureItem(modelItem, selectedItem.x - 250, selectedItem.y - 200);
+        } finally {
+            committingDrag = false;
+        }
+    }
+    
+    /**
+     * Repaints the part of the drawing area showing a world rectangle
+     * @param world the world area to repaint
+     */
+    private void repaintWorld(Rectangle world) {
+        // Pad for the selection stroke and antialiasing
+        int x = (int) Math.floor(world.x * viewScale + viewX) - 3;
+        int y = (int) Math.floor(world.y * viewScale + viewY) - 3;
+        int width = (int) Math.ceil(world.width * viewScale) + 7;
+        int height = (int) Math.ceil(world.height * viewScale) + 7;
+        drawingArea.repaint(x, y, width, height);
     }
     
     @Override
     public void onModelChanged(String changeType) {
+        // Follow selections made in other views, even while hidden, so the toolbar acts on them
+        if (changeType.equals("SELECTION_CHANGED")) {
+            followModelSelection();
+            return;
+        }
+        
+        // While hidden, only remember what needs refreshing
+        if (!isShowing()) {
+            if (changeType.startsWith("ROOM_")) {
+                roomChangedWhileHidden = true;
+            } else if (changeType.equals("MODEL_REPLACED")) {
+                roomChangedWhileHidden = true;
+                itemsChangedWhileHidden = true;
+            } else if (changeType.startsWith("ITEM_") && !committingDrag) {
+                itemsChangedWhileHidden = true;
+            }
+            return;
+        }
+        
         // Refresh the panel when the model changes
         if (changeType.equals("ROOM_COLOR_CHANGED") || 
-            changeType.equals("ROOM_DIMENSIONS_CHANGED")) {
-            repaint();
-        } else if (changeType.equals("ITEM_REMOVED")) {
-            // Only sync when items are removed
+            changeType.equals("ROOM_DIMENSIONS_CHANGED") ||
+            changeType.equals("ROOM_SHAPE_CHANGED")) {
+            invalidateRoomLayer();
+        } else if (changeType.equals("MODEL_REPLACED")) {
+            // A whole design was loaded: one pass over the new room and items
+            invalidateRoomLayer();
             syncWithModel();
-        } else if (changeType.equals("ITEM_UPDATED")) {
-            // Just repaint for updates
-            repaint();
+        } else if (changeType.equals("ITEM_REMOVED") || changeType.equals("ITEM_RESTORED")) {
+            // Items removed, or brought back by undo or redo, are dropped or added one by one
+            applyRemovedAndRestored();
+        } else if (changeType.equals("ITEM_UPDATED") && !committingDrag) {
+            // Our own drag commits are already on screen; other views' edits are copied over
+            refreshFromModel();
         }
         // We don't sync on ITEM_ADDED because we're the ones adding the item
     }
     
+    /**
+     * Applies the changes recorded while the panel was hidden
+     */
+    private void resumeAfterHidden() {
+        if (roomChangedWhileHidden) {
+            roomChangedWhileHidden = false;
+            invalidateRoomLayer();
+        }
+        if (itemsChangedWhileHidden) {
+            itemsChangedWhileHidden = false;
+            syncWithModel();
+        }
+    }
+    
     /**
      * Synchronizes the local furniture items with the model
      */
     private void syncWithModel() {
+        FurnitureItemModel selectedModel = model.getSelectedItem();
+        selectedItem = null;
+        
         // Clear the local list
         furnitureItems.clear();
+        itemIndex.clear();
+        planCopy = null;
+        invalidatePlan(null);
         
         // Add items from the model
         for (FurnitureItemModel modelItem : model.getFurnitureItems()) {
@@ -252,58 +706,300 @@ public class Design2DPanel extends JPanel implements DesignModel.DesignModelList
                 modelItem.getHeight(), 
                 modelItem.getColor(), 
                 modelItem.getName());
-            furnitureItems.add(item);
+            item.modelItem = modelItem;
+            addLocalItem(item);
+            
+            // Keep the selection on the same model item
+            if (modelItem == selectedModel) {
+                selectedItem = item;
+            }
         }
         
         repaint();
     }
     
+    /**
+     * Drops the local items whose model item is gone and adds the ones the model brought back
+     * Only those items are re-indexed and have their tiles invalidated; the rest
+     * of the plan and its cached tiles are kept. A restored item is drawn on top
+     * of the others until the plan is next synchronized in full.
+     */
+    private void applyRemovedAndRestored() {
+        List<FurnitureItemModel> modelItems = model.getFurnitureItems();
+        Set<FurnitureItemModel> inModel = Collections.newSetFromMap(new IdentityHashMap<>(modelItems.size() * 2));
+        inModel.addAll(modelItems);
+        Set<FurnitureItemModel> local = Collections.newSetFromMap(new IdentityHashMap<>(furnitureItems.size() * 2));
+        
+        furnitureItems.removeIf(item -> {
+            if (inModel.contains(item.modelItem)) {
+                local.add(item.modelItem);
+                return false;
+            }
+            itemIndex.remove(item);
+            if (planCopy != null) {
+                planCopy.remove(item);
+            }
+            if (item == selectedItem) {
+                selectedItem = null;
+            }
+            invalidatePlan(item.getBounds());
+            return true;
+        });
+        
+        for (FurnitureItemModel modelItem : modelItems) {
+            if (local.contains(modelItem)) continue;
+            FurnitureItem item = new FurnitureItem(modelItem.getX() + 250, modelItem.getZ() + 200,
+                modelItem.getWidth(), modelItem.getHeight(), modelItem.getColor(), modelItem.getName());
+            item.modelItem = modelItem;
+            addLocalItem(item);
+            updatePlan(item);
+            invalidatePlan(item.getBounds());
+        }
+        repaint();
+    }
+    
+    /**
+     * Adds an item to the local list and the spatial index, on top of existing items
+     * @param item the item to add
+     */
+    private void addLocalItem(FurnitureItem item) {
+        item.order = nextOrder++;
+        furnitureItems.add(item);
+        itemIndex.put(item, item.x, item.y, item.width, item.height);
+    }
+    
     // Inner class to represent furniture items
     class FurnitureItem {
         private int x, y, width, height;
         private Color color;
         private String name;
+        private int order;
+        private FurnitureItemModel modelItem;
         
         public FurnitureItem(int x, int y, int width, int height, Color color, String name) {
             this.x = x;
             this.y = y;
             this.width = width;
             this.height = height;
-            this.color = color;
-            this.name = name;
+            this.color = ColorPool.get(color);
+            this.name = FurnitureCatalog.internName(name);
         }
         
-        public void draw(Graphics2D g) {
-            g.setColor(color);
-            g.fillRect(x, y, width, height);
-            
-            // Draw selection border
-            if (this == selectedItem) {
-                g.setColor(Color.RED);
-                g.setStroke(new BasicStroke(2));
-                g.drawRect(x, y, width, height);
-                g.setStroke(new BasicStroke(1));
+        public void draw(Graphics2D g, boolean drawLabel) {
+            drawItem(g, x, y, width, height, color, name, this == selectedItem, drawLabel);
+        }
+        
+        public Rectangle getBounds() {
+            return new Rectangle(x, y, width, height);
+        }
+        
+        public boolean contains(Point2D p) {
+            return p.getX() >= x && p.getX() <= x + width && p.getY() >= y && p.getY() <= y + height;
+        }
+        
+        public void move(int dx, int dy) {
+            x += dx;
+            y += dy;
+            itemIndex.put(this, x, y, width, height);
+            updatePlan(this);
+            // The selected item is drawn live and left out of the tiles
+            if (this != selectedItem) {
+                invalidatePlan(new Rectangle(x - dx, y - dy, width, height).union(getBounds()));
+            }
+        }
+    }
+    
+    /**
+     * Draws a single furniture item as a labelled rectangle
+     * Shared by the live view, the background tile renderers and thumbnails
+     */
+    static void drawItem(Graphics2D g, int x, int y, int width, int height, Color color, String name,
+                         boolean selected, boolean drawLabel) {
+        g.setColor(color);
+        g.fillRect(x, y, width, height);
+        
+        // Draw selection border
+        if (selected) {
+            g.setColor(Color.RED);
+            g.setStroke(new BasicStroke(2));
+            g.drawRect(x, y, width, height);
+            g.setStroke(new BasicStroke(1));
+        } else {
+            g.setColor(Color.BLACK);
+            g.drawRect(x, y, width, height);
+        }
+        
+        // Draw label, unless it would be too small to read at the current zoom
+        if (!drawLabel) return;
+        g.setColor(Color.WHITE);
+        FontMetrics fm = g.getFontMetrics();
+        int textWidth = fm.stringWidth(name);
+        if (textWidth < width - 4) {
+            g.drawString(name, x + (width - textWidth) / 2, y + height / 2);
+        }
+    }
+    
+    /**
+     * Copy of the items read by the tile renderers on pool threads
+     * Items are immutable, and an edit replaces one item and the arrays of the
+     * grid cells it touches, so renderers never see a cell half-changed and an
+     * edit costs the same however large the plan is. A renderer may still read
+     * a cell as it was before an edit; its tile overlaps the changed area, is
+     * invalidated by the caller and discarded. Only the Event Dispatch Thread edits it.
+     */
+    private static class PlanCopy implements TilePyramid.TileRenderer {
+        private static final int CELL_SIZE = 256;
+        
+        private final Map<Long, PlanItem[]> cells = new ConcurrentHashMap<>();
+        // The current copy of each item by its order, only read by the Event Dispatch Thread
+        private final Map<Integer, PlanItem> copies = new HashMap<>();
+        private final Font font;
+        
+        PlanCopy(List<FurnitureItem> source, Font font) {
+            this.font = font;
+            for (FurnitureItem item : source) {
+                put(item);
+            }
+        }
+        
+        /**
+         * Adds an item, or replaces its copy with the item as it is now
+         */
+        void put(FurnitureItem item) {
+            PlanItem copy = new PlanItem(item);
+            PlanItem old = copies.put(copy.order, copy);
+            relink(old, copy);
+        }
+        
+        void remove(FurnitureItem item) {
+            PlanItem old = copies.remove(item.order);
+            if (old != null) {
+                relink(old, null);
+            }
+        }
+        
+        /**
+         * Swaps one item copy for another in every cell either of them covers
+         */
+        private void relink(PlanItem old, PlanItem copy) {
+            if (old != null) {
+                for (int cy = cell(old.y); cy <= cell(old.y + old.height); cy++) {
+                    for (int cx = cell(old.x); cx <= cell(old.x + old.width); cx++) {
+                        replace(key(cx, cy), old, copy != null && copy.covers(cx, cy) ? copy : null);
+                    }
+                }
+            }
+            if (copy != null) {
+                for (int cy = cell(copy.y); cy <= cell(copy.y + copy.height); cy++) {
+                    for (int cx = cell(copy.x); cx <= cell(copy.x + copy.width); cx++) {
+                        if (old == null || !old.covers(cx, cy)) {
+                            replace(key(cx, cy), null, copy);
+                        }
+                    }
+                }
+            }
+        }
+        
+        /**
+         * Stores a new array for a cell with one item removed, added, or swapped for another
+         */
+        private void replace(Long key, PlanItem removed, PlanItem added) {
+            PlanItem[] items = cells.get(key);
+            int count = items == null ? 0 : items.length;
+            PlanItem[] updated = new PlanItem[count + (added != null ? 1 : 0) - (removed != null ? 1 : 0)];
+            int n = 0;
+            for (int i = 0; i < count; i++) {
+                if (items[i] != removed) {
+                    updated[n++] = items[i];
+                }
+            }
+            if (added != null) {
+                updated[n] = added;
+            }
+            if (updated.length == 0) {
+                cells.remove(key);
             } else {
-                g.setColor(Color.BLACK);
-                g.drawRect(x, y, width, height);
+                cells.put(key, updated);
             }
+        }
+        
+        /**
+         * Collects every item whose bounds intersect a world area, each once
+         */
+        private void query(Rectangle2D world, List<PlanItem> result) {
+            Rectangle area = world.getBounds();
+            int minX = area.x;
+            int minY = area.y;
+            int maxX = area.x + area.width;
+            int maxY = area.y + area.height;
+            for (int cy = cell(minY); cy <= cell(maxY); cy++) {
+                for (int cx = cell(minX); cx <= cell(maxX); cx++) {
+                    PlanItem[] items = cells.get(key(cx, cy));
+                    if (items == null) continue;
+                    for (PlanItem item : items) {
+                        if (item.x > maxX || item.y > maxY || item.x + item.width < minX || item.y + item.height < minY) {
+                            continue;
+                        }
+                        // Report only from the first cell shared by the item and the area
+                        if (cell(Math.max(item.x, minX)) == cx && cell(Math.max(item.y, minY)) == cy) {
+                            result.add(item);
+                        }
+                    }
+                }
+            }
+        }
+        
+        @Override
+        public boolean hasContent(Rectangle2D world) {
+            List<PlanItem> found = new ArrayList<>();
+            query(world, found);
+            return !found.isEmpty();
+        }
+        
+        @Override
+        public void render(Graphics2D g, Rectangle2D world, double scale, int excluded) {
+            List<PlanItem> found = new ArrayList<>();
+            query(world, found);
+            found.sort(Comparator.comparingInt(item -> item.order));
             
-            // Draw label
-            g.setColor(Color.WHITE);
-            FontMetrics fm = g.getFontMetrics();
-            int textWidth = fm.stringWidth(name);
-            if (textWidth < width - 4) {
-                g.drawString(name, x + (width - textWidth) / 2, y + height / 2);
+            g.setFont(font);
+            boolean drawLabels = font.getSize2D() * scale >= MIN_LABEL_PIXELS;
+            for (PlanItem item : found) {
+                if (item.order == excluded) continue;
+                drawItem(g, item.x, item.y, item.width, item.height, item.color, item.name, false, drawLabels);
             }
         }
         
-        public boolean contains(Point p) {
-            return p.x >= x && p.x <= x + width && p.y >= y && p.y <= y + height;
+        private static int cell(int coordinate) {
+            return Math.floorDiv(coordinate, CELL_SIZE);
         }
         
-        public void move(int dx, int dy) {
-            x += dx;
-            y += dy;
-        }
-    }
+        private static Long key(int cx, int cy) {
+            return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+        }
+    }
+    
+    private static class PlanItem {
+        private final int x, y, width, height, order;
+        private final Color color;
+        private final String name;
+        
+        PlanItem(FurnitureItem item) {
+            this.x = item.x;
+            this.y = item.y;
+            this.width = item.width;
+            this.height = item.height;
+            this.order = item.order;
+            this.color = item.color;
+            this.name = item.name;
+        }
+        
+        /**
+         * Checks whether the item lies in a grid cell of the plan copy
+         */
+        boolean covers(int cx, int cy) {
+            return PlanCopy.cell(x) <= cx && cx <= PlanCopy.cell(x + width)
+                && PlanCopy.cell(y) <= cy && cy <= PlanCopy.cell(y + height);
+        }
+    }
 }
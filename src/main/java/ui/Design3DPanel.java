@@ -3,17 +3,25 @@ package ui;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.awt.geom.AffineTransform;
-import java.awt.geom.Path2D;
+import java.awt.geom.Area;
+import java.awt.geom.PathIterator;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import model.DesignModel;
 import model.FurnitureItemModel;
+import service.ShadingService;
 
 /**
  * 3D View Panel using Java2D for a simplified 3D rendering
- * This class creates a 3D-like view of the furniture design
+ * This class creates a 3D view of the furniture design: furniture parts are
+ * projected through a Camera3D, back faces are culled and the remaining
+ * faces are drawn by the selected SceneRenderer on a background thread
  * Note: For full 3D rendering, JOGL libraries would need to be properly installed
  */
 public class Design3DPanel extends JPanel implements MouseMotionListener, MouseWheelListener, DesignModel.DesignModelListener {
@@ -23,145 +31,124 @@ public class Design3DPanel extends JPanel implements MouseMotionListener, MouseW
     private float zoom = 1.0f;
     private int lastX, lastY;
     private List<Furniture3DItem> furnitureItems = new ArrayList<>();
+    private Map<Long, Furniture3DItem> itemsById = new HashMap<>();
+    // The model item behind each entry of furnitureItems
+    private List<FurnitureItemModel> modelItems = new ArrayList<>();
     private boolean isRotating = false;
     private boolean isShiftDown = false;
     private DesignModel model;
-    private Timer rotationTimer;
+    private final ShadingService shading;
+    private float targetZoom = 1.0f;
     
-    /**
-     * Applies lighting effects to a color based on current lighting settings
-     * @param color The original color
-     * @return The color with lighting effects applied
-     */
-    private Color applyLightingToColor(Color color) {
-        float lightIntensity = model.getLightIntensity();
-        float contrast = model.getContrast();
-        Color ambientLight = model.getAmbientLightColor();
-        
-        // Extract RGB components
-        float[] colorComponents = color.getRGBColorComponents(null);
-        float[] lightComponents = ambientLight.getRGBColorComponents(null);
-        
-        // Apply light color influence
-        float r = colorComponents[0] * lightComponents[0] * lightIntensity;
-        float g = colorComponents[1] * lightComponents[1] * lightIntensity;
-        float b = colorComponents[2] * lightComponents[2] * lightIntensity;
-        
-        // Apply contrast
-        r = 0.5f + (r - 0.5f) * contrast;
-        g = 0.5f + (g - 0.5f) * contrast;
-        b = 0.5f + (b - 0.5f) * contrast;
-        
-        // Clamp values
-        r = Math.max(0, Math.min(1, r));
-        g = Math.max(0, Math.min(1, g));
-        b = Math.max(0, Math.min(1, b));
-        
-        return new Color(r, g, b);
-    }
+    // Turntable, reset and zoom animations, advanced by elapsed time at the display refresh rate
+    private static final float TURNTABLE_DEGREES_PER_SECOND = 40.0f;
+    private static final double RESET_SECONDS = 0.4;
+    private static final double ZOOM_EASING = 12.0;
+    private final AnimationScheduler animations;
     
-    /**
-     * Draws shadows on the floor based on furniture placement
-     * @param g2d Graphics context
-     * @param roomShape Shape of the room
-     * @param width Room width
-     * @param length Room length
-     */
-    private void drawShadows(Graphics2D g2d, String roomShape, int width, int length) {
-        float shadowIntensity = model.getShadowIntensity();
-        
-        // Create a semi-transparent shadow color
-        Color shadowColor = new Color(0, 0, 0, (int)(100 * shadowIntensity));
-        g2d.setColor(shadowColor);
-        
-        // Save the current composite
-        Composite originalComposite = g2d.getComposite();
-        
-        // Use alpha composite for shadow blending
-        g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, shadowIntensity));
-        
-        // Draw shadows for each furniture item
-        for (Furniture3DItem item : furnitureItems) {
-            int x = item.getX();
-            int itemY = item.getY(); // Using y for shadow positioning
-            int itemWidth = item.getWidth();
-            int itemHeight = item.getHeight();
-            
-            // Calculate shadow position (offset based on light direction)
-            int shadowX = x + 15;
-            int shadowY = itemY + 15;
-            
-            // Draw an oval shadow beneath the item
-            g2d.fillOval(shadowX - itemWidth/2, shadowY - itemHeight/4, itemWidth, itemHeight/2);
-        }
-        
-        // Draw wall shadows
-        if (roomShape.equals("L-Shape")) {
-            // L-shape specific shadows
-            int shortWidth = width * 2/3;
-            int shortLength = length * 2/3;
-            
-            // Shadow along the inner corner
-            g2d.fillRect(width/2 - shortWidth - 10, length/2 - shortLength - 10, 10, shortLength);
-            g2d.fillRect(width/2 - shortWidth - 10, length/2 - shortLength - 10, shortWidth, 10);
-        }
-        
-        // Restore the original composite
-        g2d.setComposite(originalComposite);
-    }
+    // Meshes shared by identical items; the generation is bumped to drop them when lighting changes
+    private final Map<FurnitureMesh.Key, FurnitureMesh> meshCache = new HashMap<>();
+    private int meshGeneration = 0;
+    
+    // Model coordinates are the 2D plan shifted by (-250, -200), and the 2D room starts at (50, 50)
+    private static final int PLAN_TO_ROOM_X = 200;
+    private static final int PLAN_TO_ROOM_Z = 150;
+    
+    private static final Color WALL_COLOR = new Color(240, 240, 240);
+    private static final Color SIDE_WALL_COLOR = new Color(220, 220, 220);
+    
+    // Floor outline in world x/z, rebuilt when the room changes
+    private Shape floorShape;
+    private double[] floorOutline;
+    
+    // Renderers selectable from the control panel; they only run on the render thread
+    private final SceneRenderer[] renderers = { new Java2DSceneRenderer(), new ZBufferSceneRenderer() };
+    private SceneRenderer renderer = renderers[0];
+    
+    // Frames are rendered off the Event Dispatch Thread from an immutable scene snapshot,
+    // which is rebuilt after any model change
+    private final SceneRenderThread renderThread = new SceneRenderThread(this::showFrame);
+    private Scene3D scene;
+    
+    // Kept across scene rebuilds until items move or the lighting changes
+    private ShadowLayer shadowLayer;
+    private BufferedImage frame;
+    private Scene3D requestedScene;
+    private Camera3D requestedCamera;
+    private SceneRenderer requestedRenderer;
+    private boolean requestedPreview;
+    
+    // Rotating, zooming and the turntable draw quick previews; full quality follows once input is idle
+    private static final int REFINE_DELAY = 200;
+    private final Timer refineTimer;
+    private boolean interacting = false;
+    
+    // Picking hierarchy over the items of the current scene, refit as items move
+    private PartBVH partBVH;
+    
+    // An item dragged across the floor moves locally and is pushed to the model at most once per display frame
+    private Furniture3DItem draggedItem;
+    private double[] dragStart;
+    private final Timer dragCommitTimer;
+    private boolean dragCommitPending = false;
+    // The shadows still show the items before the current drag; they are rebuilt once it ends
+    private boolean shadowsOutdated = false;
+    
+    // Changes that arrived while the panel was hidden, applied in one pass when it is shown again
+    private boolean itemsChangedWhileHidden = false;
     
     // Inner class for the actual 3D rendering area
     private class DrawingArea extends JPanel {
         @Override
         protected void paintComponent(Graphics g) {
-            super.paintComponent(g);
             Graphics2D g2d = (Graphics2D) g;
+            if (scene == null) {
+                scene = createScene();
+            }
             
-            // Enable anti-aliasing for smoother lines
-            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            
-            // Set the origin to the center of the panel
-            int centerX = getWidth() / 2;
-            int centerY = getHeight() / 2;
-            g2d.translate(centerX, centerY);
-            
-            // Apply zoom
-            g2d.scale(zoom, zoom);
-            
-            // In Java2D, we need to use a combination of techniques to simulate 3D rotation
-            
-            // Store the original transform for later restoration if needed
-            // Removed unused variable = g2d.getTransform();
-            
-            // First apply Y rotation (around vertical axis - this is the main rotation)
-            g2d.rotate(Math.toRadians(yRotation));
-            
-            // Apply X rotation (tilt) - we simulate this with a combination of scaling and shearing
-            double tiltRadians = Math.toRadians(xRotation);
-            double tiltFactor = Math.cos(tiltRadians);
-            double shearFactor = Math.sin(tiltRadians) * 0.5;
-            
-            // Apply the tilt effect
-            g2d.scale(1.0, tiltFactor);
-            g2d.shear(0, shearFactor);
+            Camera3D camera = currentCamera();
             
-            // Apply Z rotation (roll) - this rotates the entire view
-            if (zRotation != 0) {
-                g2d.rotate(Math.toRadians(zRotation));
+            // Ask for a new frame only when the scene, camera, renderer or quality changed
+            if (getWidth() > 0 && getHeight() > 0 && (scene != requestedScene || renderer != requestedRenderer
+                || interacting != requestedPreview || !camera.equals(requestedCamera))) {
+                requestedScene = scene;
+                requestedCamera = camera;
+                requestedRenderer = renderer;
+                requestedPreview = interacting;
+                renderThread.request(new SceneRenderThread.Request(scene, camera, renderer, getBackground(),
+                    getWidth(), getHeight(), interacting));
             }
             
-            // Draw room
-            drawRoom(g2d);
+            // Only the latest finished frame is blitted here; previews are smaller and scaled up
+            if (frame != null) {
+                g2d.drawImage(frame, 0, 0, getWidth(), getHeight(), null);
+            } else {
+                super.paintComponent(g);
+            }
             
-            // Draw furniture
-            drawFurniture(g2d);
+            // The selection is outlined with the current camera, so it keeps up with drags
+            FurnitureItemModel selected = model.getSelectedItem();
+            Furniture3DItem selected3D = selected != null ? itemsById.get(selected.getId()) : null;
+            if (selected3D != null) {
+                drawSelection(g2d, camera, selected3D);
+            }
         }
     }
     
     private DrawingArea drawingArea;
     
     public Design3DPanel(DesignModel model) {
+        this(model, new ShadingService(model));
+    }
+    
+    /**
+     * Creates the 3D view with a shading service shared with other views and exports
+     * @param model the design model
+     * @param shading the lighting cache for the model
+     */
+    public Design3DPanel(DesignModel model, ShadingService shading) {
         this.model = model;
+        this.shading = shading;
         model.addListener(this);
         setLayout(new BorderLayout());
         
@@ -169,18 +156,58 @@ public class Design3DPanel extends JPanel implements MouseMotionListener, MouseW
         drawingArea = new DrawingArea();
         drawingArea.setBackground(new Color(240, 240, 240));
         
+        refineTimer = new Timer(REFINE_DELAY, unused -> {
+            interacting = false;
+            drawingArea.repaint();
+        });
+        refineTimer.setRepeats(false);
+        dragCommitTimer = new Timer(AnimationScheduler.frameIntervalMillis(), unused -> {
+            if (dragCommitPending) {
+                commitDrag();
+            } else {
+                ((Timer) unused.getSource()).stop();
+            }
+        });
+        dragCommitTimer.setCoalesce(true);
+        animations = new AnimationScheduler(drawingArea::repaint);
+        
         // Add mouse listeners for rotation and zooming to the drawing area
         drawingArea.addMouseListener(new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
                 lastX = e.getX();
                 lastY = e.getY();
-                isRotating = true;
+                animations.stop("view"); // Dragging takes over from a reset in progress
                 drawingArea.requestFocusInWindow(); // Ensure panel has focus for key events
+                
+                // Clicking an item selects it and drags it across the floor; clicking empty space rotates
+                draggedItem = null;
+                if (SwingUtilities.isLeftMouseButton(e)) {
+                    int index = pickItem(e.getX(), e.getY());
+                    model.setSelectedItem(index >= 0 ? modelItems.get(index) : null);
+                    if (index >= 0) {
+                        draggedItem = furnitureItems.get(index);
+                        dragStart = floorPoint(e.getX(), e.getY(), draggedItem.getY());
+                    }
+                }
+                isRotating = draggedItem == null;
             }
             
             @Override
             public void mouseReleased(MouseEvent e) {
+                // Final commit so the model ends up at the drop position
+                dragCommitTimer.stop();
+                if (dragCommitPending) {
+                    commitDrag();
+                }
+                model.finishMove();
+                if (shadowsOutdated) {
+                    shadowsOutdated = false;
+                    shadowLayer = null;
+                    scene = null;
+                    drawingArea.repaint();
+                }
+                draggedItem = null;
                 isRotating = false;
             }
         });
@@ -231,45 +258,136 @@ public class Design3DPanel extends JPanel implements MouseMotionListener, MouseW
         controlPanel.add(rotateLeftBtn);
         controlPanel.add(rotateRightBtn);
         controlPanel.add(stopRotateBtn);
-        controlPanel.add(new JLabel("Drag: Rotate | Shift+Drag: Z-Rotate | Scroll: Zoom"));
+        
+        JComboBox<String> rendererBox = new JComboBox<>();
+        for (SceneRenderer option : renderers) {
+            rendererBox.addItem(option.getName());
+        }
+        rendererBox.addActionListener(unused -> {
+            renderer = renderers[rendererBox.getSelectedIndex()];
+            drawingArea.repaint();
+        });
+        controlPanel.add(rendererBox);
+        controlPanel.add(new JLabel("Click: Select | Drag item: Move | Drag: Rotate | Shift+Drag: Z-Rotate | Scroll: Zoom"));
         add(drawingArea, BorderLayout.CENTER);
         add(controlPanel, BorderLayout.SOUTH);
         
         // Synchronize with the model
         syncWithModel();
+        
+        // Catch up on model changes once the tab becomes visible again
+        addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 && isShowing()
+                && itemsChangedWhileHidden) {
+                itemsChangedWhileHidden = false;
+                syncWithModel();
+            }
+        });
     }
     
     /**
      * Synchronizes the 3D furniture items with the model
+     * Items are matched by model id and updated in place, so unchanged items
+     * keep their meshes; the scene is only rebuilt when something differs
      */
     private void syncWithModel() {
-        // Clear the current items
-        furnitureItems.clear();
-        
-        // Add items from the model
-        for (FurnitureItemModel item : model.getFurnitureItems()) {
-            furnitureItems.add(new Furniture3DItem(
-                item.getName(),
-                item.getX(),
-                item.getY(),
-                item.getZ(),
-                item.getWidth(),
-                item.getHeight(),
-                item.getDepth(),
-                item.getColor()
-            ));
+        List<FurnitureItemModel> modelItems = model.getFurnitureItems();
+        Map<Long, Furniture3DItem> previous = itemsById;
+        itemsById = new HashMap<>(modelItems.size() * 2);
+        boolean changed = modelItems.size() != furnitureItems.size();
+        
+        for (int i = 0; i < modelItems.size(); i++) {
+            FurnitureItemModel item = modelItems.get(i);
+            Furniture3DItem item3D = previous.get(item.getId());
+            if (item3D == null || !item3D.getName().equals(item.getName())) {
+                item3D = new Furniture3DItem(
+                    item.getName(),
+                    item.getX(),
+                    item.getY(),
+                    item.getZ(),
+                    item.getWidth(),
+                    item.getHeight(),
+                    item.getDepth(),
+                    item.getColor()
+                );
+                changed = true;
+            } else if (item3D.getX() != item.getX() || item3D.getY() != item.getY() || item3D.getZ() != item.getZ()
+                || item3D.getWidth() != item.getWidth() || item3D.getHeight() != item.getHeight()
+                || item3D.getDepth() != item.getDepth() || !item3D.getColor().equals(item.getColor())) {
+                item3D.setX(item.getX());
+                item3D.setY(item.getY());
+                item3D.setZ(item.getZ());
+                item3D.setWidth(item.getWidth());
+                item3D.setHeight(item.getHeight());
+                item3D.setDepth(item.getDepth());
+                item3D.setColor(item.getColor());
+                changed = true;
+            }
+            itemsById.put(item.getId(), item3D);
+            
+            if (i >= furnitureItems.size()) {
+                furnitureItems.add(item3D);
+            } else if (furnitureItems.get(i) != item3D) {
+                furnitureItems.set(i, item3D);
+                changed = true;
+            }
         }
+        // Drop items that were removed from the model
+        while (furnitureItems.size() > modelItems.size()) {
+            furnitureItems.remove(furnitureItems.size() - 1);
+        }
+        this.modelItems = modelItems;
         
-        repaint();
+        if (changed) {
+            scene = null;
+            shadowLayer = null;
+            repaint();
+        }
     }
     
     @Override
     public void onModelChanged(String changeType) {
+        if (changeType.equals("SELECTION_CHANGED")) {
+            // Only the outline changes
+            drawingArea.repaint();
+            return;
+        }
+        if (changeType.equals("LIGHTING_CHANGED")) {
+            // Lit colors are baked into the meshes
+            meshCache.clear();
+            meshGeneration++;
+            shadowLayer = null;
+        } else if (changeType.startsWith("ROOM_") || changeType.equals("MODEL_REPLACED")) {
+            floorShape = null;
+            if (!changeType.equals("ROOM_COLOR_CHANGED")) {
+                // Items are placed relative to the floor, so their shadows move with it
+                shadowLayer = null;
+            }
+        }
+        if (!changeType.startsWith("ITEM_")) {
+            // Item changes rebuild the scene only if the sync finds a difference
+            scene = null;
+        }
+        
+        // While hidden, only remember that the items need syncing; room and
+        // lighting are read from the model on every paint anyway
+        if (!isShowing()) {
+            if (changeType.startsWith("ITEM_") || changeType.equals("MODEL_REPLACED")) {
+                itemsChangedWhileHidden = true;
+            }
+            return;
+        }
+        
         if (changeType.equals("ITEM_ADDED") || 
             changeType.equals("ITEM_REMOVED") ||
+            changeType.equals("ITEM_RESTORED") ||
             changeType.equals("ITEM_UPDATED")) {
-            // When items are added, removed, or updated, synchronize with the model
+            // When items are added, removed, restored by undo or redo, or updated, synchronize with the model
+            syncWithModel();
+        } else if (changeType.equals("MODEL_REPLACED")) {
+            // The room changed too, so repaint even if the items happen to match
             syncWithModel();
+            drawingArea.repaint();
         } else if (changeType.equals("ROOM_DIMENSIONS_CHANGED") || 
             changeType.equals("ROOM_COLOR_CHANGED") ||
             changeType.equals("ROOM_SHAPE_CHANGED") ||
@@ -288,337 +406,369 @@ public class Design3DPanel extends JPanel implements MouseMotionListener, MouseW
         // All drawing is now done in the DrawingArea class
     }
     
-    private void drawRoom(Graphics2D g2d) {
-        // Get room dimensions, color, and shape from the model
-        int width = model.getRoomWidth();
-        int length = model.getRoomLength();
-        int height = model.getRoomHeight();
-        Color color = model.getRoomColor();
-        String shape = model.getRoomShape();
-        
-        // Apply lighting effects to room color
-        Color adjustedColor = applyLightingToColor(color);
+    /**
+     * Shows a frame delivered by the render thread
+     */
+    private void showFrame(BufferedImage finished) {
+        frame = finished;
+        drawingArea.repaint();
+    }
+    
+    /**
+     * Takes an immutable snapshot of the room and furniture for the render thread
+     */
+    private Scene3D createScene() {
+        if (floorShape == null) {
+            buildFloor();
+        }
+        double originX = itemOriginX();
+        double originZ = itemOriginZ();
+        
+        FurnitureMesh[] meshes = new FurnitureMesh[furnitureItems.size()];
+        double[] placements = new double[meshes.length * 3];
+        for (int i = 0; i < meshes.length; i++) {
+            Furniture3DItem item = furnitureItems.get(i);
+            meshes[i] = getMesh(item);
+            placements[i * 3] = originX + item.getX();
+            placements[i * 3 + 1] = item.getY();
+            placements[i * 3 + 2] = originZ + item.getZ();
+        }
+        partBVH = partBVH == null ? new PartBVH(meshes, placements) : partBVH.update(meshes, placements);
         
-        // Draw floor based on room shape
-        g2d.setColor(adjustedColor);
+        // Draw shadows on the floor if shadow intensity is high enough
+        if (shadowLayer == null && model.getShadowIntensity() > 0.2f) {
+            double[] boxes = new double[meshes.length * 5];
+            for (int i = 0; i < meshes.length; i++) {
+                Furniture3DItem item = furnitureItems.get(i);
+                boxes[i * 5] = placements[i * 3];
+                boxes[i * 5 + 1] = placements[i * 3 + 2];
+                boxes[i * 5 + 2] = item.getWidth();
+                boxes[i * 5 + 3] = item.getHeight();
+                boxes[i * 5 + 4] = item.getY() + item.getDepth();
+            }
+            shadowLayer = new ShadowLayer(boxes, model.getShadowIntensity());
+        }
         
-        switch (shape) {
+        // Apply lighting effects to the room colors
+        return new Scene3D(floorShape, floorOutline,
+            shading.shade(model.getRoomColor()),
+            shading.shade(WALL_COLOR),
+            shading.shade(SIDE_WALL_COLOR),
+            model.getRoomHeight(), model.getShadowIntensity() > 0.2f ? shadowLayer : null, meshes, placements);
+    }
+    
+    /**
+     * Builds the floor outline in world x/z, centered on the origin
+     * The L-shape has its inner corner cut out of the far side, as in the 2D view
+     */
+    private void buildFloor() {
+        floorShape = createFloorShape(model.getRoomWidth(), model.getRoomLength(), model.getRoomShape());
+        floorOutline = flattenOutline(floorShape);
+    }
+    
+    /**
+     * Builds the floor of a room in world x/z, centered on the origin
+     */
+    private static Shape createFloorShape(int width, int length, String roomShape) {
+        switch (roomShape) {
             case "L-Shape":
-                // Draw L-shaped floor
                 int shortWidth = width * 2/3;
                 int shortLength = length * 2/3;
-                
-                // Main rectangle
-                g2d.fillRect(-width/2, -length/2, width, length);
-                
-                // Cut out the inner corner to create L-shape
-                g2d.setColor(Color.LIGHT_GRAY); // Background color
-                g2d.fillRect(width/2 - shortWidth, length/2 - shortLength, shortWidth, shortLength);
-                
-                // Redraw the outline
-                g2d.setColor(Color.BLACK);
-                // Outer edge
-                g2d.drawRect(-width/2, -length/2, width, length);
-                // Inner edge
-                g2d.drawRect(width/2 - shortWidth, length/2 - shortLength, shortWidth, shortLength);
-                break;
-                
+                Area area = new Area(new Rectangle(-width/2, -length/2, width, length));
+                area.subtract(new Area(new Rectangle(width/2 - shortWidth, length/2 - shortLength, shortWidth, shortLength)));
+                return area;
             case "Square":
                 // Make sure dimensions are equal
                 int size = Math.max(width, length);
-                g2d.fillRect(-size/2, -size/2, size, size);
-                g2d.setColor(Color.BLACK);
-                g2d.drawRect(-size/2, -size/2, size, size);
-                break;
-                
+                return new Rectangle(-size/2, -size/2, size, size);
             case "Rectangle":
             default:
-                // Standard rectangle room
-                g2d.fillRect(-width/2, -length/2, width, length);
-                g2d.setColor(Color.BLACK);
-                g2d.drawRect(-width/2, -length/2, width, length);
-                break;
-        }
-        
-        // Draw walls with lighting effects
-        Color wallColor = new Color(240, 240, 240);
-        Color adjustedWallColor = applyLightingToColor(wallColor);
-        
-        // Back wall
-        g2d.setColor(adjustedWallColor);
-        
-        if (shape.equals("L-Shape")) {
-            // Draw L-shaped back wall
-            int shortWidth = width * 2/3;
-            @SuppressWarnings("unused")
-            int shortLength = length * 2/3;
-            
-            // Main part
-            g2d.fillRect(-width/2, -length/2, width, height/3);
-            // Cut out the inner corner
-            g2d.setColor(Color.LIGHT_GRAY);
-            g2d.fillRect(width/2 - shortWidth, -length/2, shortWidth, height/3);
-            
-            g2d.setColor(Color.BLACK);
-            g2d.drawRect(-width/2, -length/2, width - shortWidth, height/3);
-        } else {
-            g2d.fillRect(-width/2, -length/2, width, height/3);
-            g2d.setColor(Color.BLACK);
-            g2d.drawRect(-width/2, -length/2, width, height/3);
+                return new Rectangle(-width/2, -length/2, width, length);
         }
-        
-        // Left wall with shadow effect
-        Color leftWallColor = new Color(220, 220, 220);
-        Color adjustedLeftWallColor = applyLightingToColor(leftWallColor);
-        g2d.setColor(adjustedLeftWallColor);
-        
-        if (shape.equals("L-Shape")) {
-            // Draw L-shaped left wall
-            g2d.fillRect(-width/2, -length/2, width/6, length * 2/3);
-            g2d.setColor(Color.BLACK);
-            g2d.drawRect(-width/2, -length/2, width/6, length * 2/3);
-        } else {
-            g2d.fillRect(-width/2, -length/2, width/6, length);
-            g2d.setColor(Color.BLACK);
-            g2d.drawRect(-width/2, -length/2, width/6, length);
+    }
+    
+    /**
+     * Flattens a floor outline into x/z pairs for the walls
+     */
+    private static double[] flattenOutline(Shape floor) {
+        List<Double> points = new ArrayList<>();
+        double[] coords = new double[6];
+        for (PathIterator it = floor.getPathIterator(null); !it.isDone(); it.next()) {
+            int segment = it.currentSegment(coords);
+            if (segment == PathIterator.SEG_MOVETO || segment == PathIterator.SEG_LINETO) {
+                points.add(coords[0]);
+                points.add(coords[1]);
+            }
         }
-        
-        // Draw shadows on the floor if shadow intensity is high enough
-        if (model.getShadowIntensity() > 0.2f) {
-            drawShadows(g2d, shape, width, length);
+        double[] outline = new double[points.size()];
+        for (int i = 0; i < outline.length; i++) {
+            outline[i] = points.get(i);
         }
+        return outline;
     }
     
-    private void drawFurniture(Graphics2D g2d) {
-        // Sort furniture by z-order for proper rendering
-        furnitureItems.sort((a, b) -> b.getZ() - a.getZ());
-        
-        for (Furniture3DItem item : furnitureItems) {
-            // Calculate position with perspective
-            int x = item.getX();
-            @SuppressWarnings("unused")
-            int y = item.getY();
-            int z = item.getZ();
-            int width = item.getWidth();
-            int height = item.getHeight();
-            int depth = item.getDepth();
-            
-            // Apply perspective scaling based on z-position
-            double perspectiveScale = 1.0 - (z / 1000.0);
-            if (perspectiveScale < 0.5) perspectiveScale = 0.5;
-            
-            // Create ambient shadow color for 3D effect
-            Color ambientColor = new Color(0, 0, 0, 50);
-            
-            // Apply lighting effects to furniture color
-            Color adjustedColor = applyLightingToColor(item.getColor());
-            
-            // Draw the furniture item based on its type
-            switch (item.getName()) {
-                case "Table":
-                case "Dining Table":
-                case "Coffee Table":
-                    drawTable(g2d, x, z, width, height, depth, adjustedColor);
-                    break;
-                case "Chair":
-                    drawChair(g2d, x, z, width, height, depth, adjustedColor);
-                    break;
-                case "Sofa":
-                    drawSofa(g2d, x, z, width, height, depth, adjustedColor);
-                    break;
-                case "Bed":
-                    drawBed(g2d, x, z, width, height, depth, adjustedColor);
-                    break;
-                case "Wardrobe":
-                    drawWardrobe(g2d, x, z, width, height, depth, adjustedColor);
-                    break;
-                case "Lamp":
-                    drawLamp(g2d, x, z, width, height, depth, adjustedColor);
-                    break;
-                default:
-                    // Draw a simple box for unknown furniture types
-                    drawBox(g2d, x, z, width, height, depth, item.getColor(), ambientColor);
+    /**
+     * Gets the world x of model x = 0, so items sit where the 2D plan shows them
+     */
+    private double itemOriginX() {
+        return PLAN_TO_ROOM_X - floorShape.getBounds2D().getWidth() / 2;
+    }
+    
+    /**
+     * Gets the world z of model z = 0, so items sit where the 2D plan shows them
+     */
+    private double itemOriginZ() {
+        return PLAN_TO_ROOM_Z - floorShape.getBounds2D().getHeight() / 2;
+    }
+    
+    /**
+     * Gets the mesh for an item, building it only the first time its type,
+     * size and color combination is seen under the current lighting
+     * @param item the furniture item
+     * @return the shared mesh
+     */
+    private FurnitureMesh getMesh(Furniture3DItem item) {
+        FurnitureMesh mesh = item.getMesh(meshGeneration);
+        if (mesh == null) {
+            FurnitureMesh.Key key = new FurnitureMesh.Key(item.getType(), item.getWidth(), item.getHeight(),
+                item.getDepth(), item.getColor().getRGB());
+            mesh = meshCache.get(key);
+            if (mesh == null) {
+                mesh = FurnitureMesh.build(item.getType(), item.getWidth(), item.getHeight(), item.getDepth(),
+                    shading.shade(item.getColor()), item.getColor());
+                meshCache.put(key, mesh);
             }
+            item.setMesh(mesh, meshGeneration);
         }
+        return mesh;
     }
     
-    private void drawBox(Graphics2D g2d, int x, int y, int width, int height, int depth, Color color, Color ambientColor) {
-        // Top face
-        g2d.setColor(color.brighter());
-        Path2D topFace = new Path2D.Double();
-        topFace.moveTo(x - width/2, y - height/2 - depth/4);
-        topFace.lineTo(x + width/2, y - height/2 - depth/4);
-        topFace.lineTo(x + width/2 - depth/4, y - height/2);
-        topFace.lineTo(x - width/2 - depth/4, y - height/2);
-        topFace.closePath();
-        g2d.fill(topFace);
-        g2d.setColor(Color.BLACK);
-        g2d.draw(topFace);
-        
-        // Front face
-        g2d.setColor(color);
-        g2d.fillRect(x - width/2 - depth/4, y - height/2, width, height);
-        g2d.setColor(Color.BLACK);
-        g2d.drawRect(x - width/2 - depth/4, y - height/2, width, height);
-        
-        // Side face
-        g2d.setColor(color.darker());
-        Path2D sideFace = new Path2D.Double();
-        sideFace.moveTo(x + width/2 - depth/4, y - height/2);
-        sideFace.lineTo(x + width/2, y - height/2 - depth/4);
-        sideFace.lineTo(x + width/2, y + height/2 - depth/4);
-        sideFace.lineTo(x + width/2 - depth/4, y + height/2);
-        sideFace.closePath();
-        g2d.fill(sideFace);
-        g2d.setColor(Color.BLACK);
-        g2d.draw(sideFace);
-    }
-    
-    private void drawTable(Graphics2D g2d, int x, int y, int width, int height, int depth, Color color) {
-        // Create ambient shadow color for 3D effect
-        Color ambientColor = new Color(0, 0, 0, 50);
-        
-        // Draw table top
-        drawBox(g2d, x, y - height/2, width, height/4, depth, color, ambientColor);
-        
-        // Draw table legs
-        int legWidth = width/10;
-        int legDepth = depth/10;
-        
-        // Front legs
-        drawBox(g2d, x - width/2 + legWidth, y, legWidth, height, legDepth, color.darker(), ambientColor);
-        drawBox(g2d, x + width/2 - legWidth, y, legWidth, height, legDepth, color.darker(), ambientColor);
-        
-        // Back legs (partially hidden)
-        drawBox(g2d, x - width/2 + legWidth, y - depth + legDepth, legWidth, height, legDepth, color.darker(), ambientColor);
-        drawBox(g2d, x + width/2 - legWidth, y - depth + legDepth, legWidth, height, legDepth, color.darker(), ambientColor);
+    /**
+     * Gets the camera for the current view, with the world origin at the center of the drawing area
+     */
+    private Camera3D currentCamera() {
+        return new Camera3D(xRotation, yRotation, zRotation, zoom,
+            drawingArea.getWidth() / 2.0, drawingArea.getHeight() / 2.0);
     }
     
-    private void drawChair(Graphics2D g2d, int x, int y, int width, int height, int depth, Color color) {
-        // Create ambient shadow color for 3D effect
-        Color ambientColor = new Color(0, 0, 0, 50);
-        
-        // Draw seat
-        drawBox(g2d, x, y - height/3, width, height/6, depth, color, ambientColor);
-        
-        // Draw back
-        drawBox(g2d, x, y - height*2/3, width, height*2/3, depth/6, color.darker(), ambientColor);
-        
-        // Draw legs
-        int legWidth = width/12;
-        int legDepth = depth/12;
-        
-        // Front legs
-        drawBox(g2d, x - width/2 + legWidth, y, legWidth, height/2, legDepth, color.darker(), ambientColor);
-        drawBox(g2d, x + width/2 - legWidth, y, legWidth, height/2, legDepth, color.darker(), ambientColor);
-        
-        // Back legs
-        drawBox(g2d, x - width/2 + legWidth, y - depth + legDepth, legWidth, height/2, legDepth, color.darker(), ambientColor);
-        drawBox(g2d, x + width/2 - legWidth, y - depth + legDepth, legWidth, height/2, legDepth, color.darker(), ambientColor);
+    /**
+     * Captures the current view for a high-resolution export
+     * The view is scaled up to the image as the drawing area would be if it
+     * were that large, and drawn at full quality. Each tile renders the scene
+     * snapshot taken now with its own renderer and face buffers.
+     * @param width the image width in pixels
+     * @param height the image height in pixels
+     * @return the source that draws the tiles of the image
+     */
+    TiledImageExporter.TileSource createExportSource(int width, int height) {
+        if (itemsChangedWhileHidden) {
+            itemsChangedWhileHidden = false;
+            syncWithModel();
+        }
+        if (scene == null) {
+            scene = createScene();
+        }
+        Scene3D exported = scene;
+        SceneRenderer kind = renderer;
+        Color background = drawingArea.getBackground();
+
+        Camera3D camera = new Camera3D(xRotation, yRotation, zRotation, (float) (zoom * exportScale(width, height)),
+            width / 2.0, height / 2.0);
+
+        return (g, x, y, tileWidth, tileHeight) ->
+            renderOffscreen(g, tileWidth, tileHeight, exported, camera.translated(x, y), kind, background);
     }
     
-    private void drawSofa(Graphics2D g2d, int x, int y, int width, int height, int depth, Color color) {
-        // Create ambient shadow color for 3D effect
-        Color ambientColor = new Color(0, 0, 0, 50);
-        
-        // Draw base
-        drawBox(g2d, x, y - height/4, width, height/2, depth, color, ambientColor);
-        
-        // Draw back
-        drawBox(g2d, x, y - height*3/4, width, height/2, depth/3, color.darker(), ambientColor);
-        
-        // Draw arms
-        drawBox(g2d, x - width/2 + width/10, y - height/3, width/5, height/2, depth, color.darker(), ambientColor);
-        drawBox(g2d, x + width/2 - width/10, y - height/3, width/5, height/2, depth, color.darker(), ambientColor);
+    /**
+     * Captures the current view for a turntable export, turned around the vertical axis frame by frame
+     * Frames are framed like the drawing area, scaled to the frame size
+     * @param width the frame width in pixels
+     * @param height the frame height in pixels
+     * @return the source that draws the frames
+     */
+    TurntableExporter.FrameSource createTurntableSource(int width, int height) {
+        if (itemsChangedWhileHidden) {
+            itemsChangedWhileHidden = false;
+            syncWithModel();
+        }
+        if (scene == null) {
+            scene = createScene();
+        }
+        Scene3D exported = scene;
+        SceneRenderer kind = renderer;
+        Color background = drawingArea.getBackground();
+        float tilt = xRotation, roll = zRotation;
+        float frameZoom = (float) (zoom * exportScale(width, height));
+        
+        return (g, frameWidth, frameHeight, rotation) -> renderOffscreen(g, frameWidth, frameHeight, exported,
+            new Camera3D(tilt, rotation, roll, frameZoom, frameWidth / 2.0, frameHeight / 2.0), kind, background);
     }
     
     /**
-     * Draws a bed with headboard, mattress, pillows, and blanket
-     * Inspired by the 3D bedroom project implementation
+     * Renders a full turn of the current view and writes it as numbered PNG frames
+     * Blocks until every frame is written; the frames render in parallel
+     * @param directory the directory the frames are written to
+     * @param prefix the start of each frame's file name
+     * @param frames the number of frames in the full turn
+     * @param width the frame width in pixels
+     * @param height the frame height in pixels
+     * @throws IOException if a frame cannot be rendered or written
      */
-    private void drawBed(Graphics2D g2d, int x, int y, int width, int height, int depth, Color color) {
-        // Create ambient shadow color for 3D effect
-        Color ambientColor = new Color(0, 0, 0, 50);
-        
-        // Draw bed frame/base
-        drawBox(g2d, x, y, width, height/6, depth, color.darker(), ambientColor);
-        
-        // Draw mattress
-        Color mattressColor = new Color(220, 220, 220);  // Light gray
-        Color mattressAmbient = new Color(180, 180, 180);
-        drawBox(g2d, x, y - height/8, (int)(width * 0.95), height/8, (int)(depth * 0.9), mattressColor, mattressAmbient);
-        
-        // Draw headboard
-        drawBox(g2d, x - width/2 + width/20, y - height/4, width/10, height/2, depth/10, color, ambientColor);
-        
-        // Draw pillows
-        Color pillowColor = new Color(240, 240, 240);  // Off-white
-        Color pillowAmbient = new Color(200, 200, 200);
-        
-        // Left pillow
-        drawBox(g2d, x - width/4, y - height/6, width/4, height/12, depth/3, pillowColor, pillowAmbient);
-        
-        // Right pillow
-        drawBox(g2d, x + width/4, y - height/6, width/4, height/12, depth/3, pillowColor, pillowAmbient);
-        
-        // Draw blanket
-        Color blanketColor = new Color(70, 130, 180);  // Steel blue
-        Color blanketAmbient = new Color(35, 65, 90);
-        drawBox(g2d, x, y, (int)(width * 0.9), height/20, (int)(depth * 0.7), blanketColor, blanketAmbient);
+    public void exportTurntable(File directory, String prefix, int frames, int width, int height) throws IOException {
+        TurntableExporter.export(createTurntableSource(width, height), yRotation, frames, width, height,
+            directory, prefix, finished -> { }, () -> false);
     }
     
     /**
-     * Draws a wardrobe with doors, drawers and handles
-     * Inspired by the 3D bedroom project implementation
+     * Gets the turn of the current view, where a turntable export starts
      */
-    private void drawWardrobe(Graphics2D g2d, int x, int y, int width, int height, int depth, Color color) {
-        // Create ambient shadow color for 3D effect
-        Color ambientColor = new Color(0, 0, 0, 50);
-        
-        // Draw main body
-        drawBox(g2d, x, y - height/2, width, height, depth, color, ambientColor);
-        
-        // Draw door lines
-        g2d.setColor(Color.BLACK);
-        g2d.drawLine(x, y - height, x, y);
-        
-        // Draw handles
-        int handleSize = width/20;
-        g2d.setColor(Color.DARK_GRAY);
-        g2d.fillOval(x - handleSize*2, y - height/2, handleSize, handleSize);
-        g2d.fillOval(x + handleSize, y - height/2, handleSize, handleSize);
+    float getYRotation() {
+        return yRotation;
     }
     
     /**
-     * Draws a lamp with base, stand, and shade
-     * Inspired by the 3D bedroom project implementation
+     * Gets how much larger an export is drawn than the drawing area
      */
-    private void drawLamp(Graphics2D g2d, int x, int y, int width, int height, int depth, Color color) {
-        // Create ambient shadow color for 3D effect
-        Color ambientColor = new Color(0, 0, 0, 50);
-        
-        // Lamp base
-        Color baseColor = color.darker();
-        drawBox(g2d, x, y, width/3, height/10, width/3, baseColor, ambientColor);
-        
-        // Lamp stand
-        drawBox(g2d, x, y - height/2, width/20, height, width/20, color, ambientColor);
-        
-        // Lamp shade
-        // Draw a cone for the lampshade
-        int shadeWidth = width;
-        int shadeHeight = height/4;
+    private double exportScale(int width, int height) {
+        // A drawing area that was never laid out is taken to be about its size in the dashboard
+        Dimension view = drawingArea.getWidth() > 0 ? drawingArea.getSize() : new Dimension(800, 600);
+        return Math.min((double) width / Math.max(1, view.width), (double) height / Math.max(1, view.height));
+    }
+    
+    /**
+     * Draws a full-quality frame of a scene snapshot away from the render thread
+     * Each call has its own renderer and face buffers, so calls can run in parallel
+     */
+    private static void renderOffscreen(Graphics2D g, int width, int height, Scene3D scene, Camera3D camera,
+                                        SceneRenderer kind, Color background) {
+        FaceBuffer wallFaces = new FaceBuffer();
+        FaceBuffer furnitureFaces = new FaceBuffer();
+        wallFaces.clear(scene);
+        furnitureFaces.clear(scene);
+        scene.collectWalls(wallFaces, camera);
+        scene.collectFurniture(furnitureFaces, camera);
+        kind.newInstance().render(g, width, height, background, true,
+            floor -> scene.drawFloor(floor, camera, true), wallFaces, furnitureFaces);
+    }
+
+    /**
+     * Captures the room and furniture of a model as 3D geometry for other tools
+     * Read straight from the model, placed as the 3D view places them, so no
+     * 3D view has to exist. Call on the Event Dispatch Thread; the returned
+     * exporter holds its own copy and can write the file on any thread.
+     * @param model the design to capture
+     * @return the exporter, ready to write
+     */
+    static SceneGeometryExporter createGeometryExport(DesignModel model) {
+        Shape floor = createFloorShape(model.getRoomWidth(), model.getRoomLength(), model.getRoomShape());
+        SceneGeometryExporter exporter = new SceneGeometryExporter(floor, flattenOutline(floor), model.getRoomHeight(),
+            model.getRoomColor(), WALL_COLOR);
+        double originX = PLAN_TO_ROOM_X - floor.getBounds2D().getWidth() / 2;
+        double originZ = PLAN_TO_ROOM_Z - floor.getBounds2D().getHeight() / 2;
+        for (FurnitureItemModel item : model.getFurnitureItems()) {
+            exporter.addItem(item.getName(), item.getWidth(), item.getHeight(), item.getDepth(), item.getColor(),
+                originX + item.getX(), item.getY(), originZ + item.getZ());
+        }
+        return exporter;
+    }
+    
+    /**
+     * Finds the item under a point of the drawing area
+     * @return the index of the frontmost item there, or -1 if there is none
+     */
+    private int pickItem(int x, int y) {
+        if (scene == null) {
+            scene = createScene();
+        }
+        return partBVH.pick(currentCamera().ray(x, y));
+    }
+    
+    /**
+     * Gets the model x/z under a point of the drawing area, on the horizontal plane at a height
+     * @return the x and z, or null when the view is too close to edge-on for the plane
+     */
+    private double[] floorPoint(int x, int y, double height) {
+        double[] ray = currentCamera().ray(x, y);
+        if (Math.abs(ray[4]) < 0.05) return null;
+        double t = (height - ray[1]) / ray[4];
+        return new double[] { ray[0] + t * ray[3] - itemOriginX(), ray[2] + t * ray[5] - itemOriginZ() };
+    }
+    
+    /**
+     * Pushes the locally dragged position to the model item
+     */
+    private void commitDrag() {
+        dragCommitPending = false;
+        int index = furnitureItems.indexOf(draggedItem);
+        if (index < 0) return;
+        
+        FurnitureItemModel modelItem = modelItems.get(index);
+        // The sync that follows finds this panel already up to date; the moves of one drag form one undo step
+        model.moveFurnitureItem(modelItem, draggedItem.getX(), draggedItem.getZ());
+    }
+    
+    /**
+     * Outlines the bounding box of the selected item
+     */
+    private void drawSelection(Graphics2D g2d, Camera3D camera, Furniture3DItem item) {
+        double x0 = itemOriginX() + item.getX(), x1 = x0 + item.getWidth();
+        double y0 = item.getY(), y1 = y0 + item.getDepth();
+        double z0 = itemOriginZ() + item.getZ(), z1 = z0 + item.getHeight();
+        
+        // Corners in binary order of (x, y, z), so edges join corners differing in one bit
+        int[] xs = new int[8], ys = new int[8];
+        for (int c = 0; c < 8; c++) {
+            double x = (c & 4) == 0 ? x0 : x1;
+            double y = (c & 2) == 0 ? y0 : y1;
+            double z = (c & 1) == 0 ? z0 : z1;
+            xs[c] = (int) Math.round(camera.screenX(x, y, z));
+            ys[c] = (int) Math.round(camera.screenY(x, y, z));
+        }
         
-        // Draw the shade as an oval from above
-        g2d.setColor(color.brighter());
-        g2d.fillOval(x - shadeWidth/2, y - height, shadeWidth, shadeHeight);
-        g2d.setColor(Color.BLACK);
-        g2d.drawOval(x - shadeWidth/2, y - height, shadeWidth, shadeHeight);
+        g2d.setColor(Color.RED);
+        g2d.setStroke(new BasicStroke(2));
+        for (int c = 0; c < 8; c++) {
+            for (int bit = 1; bit < 8; bit <<= 1) {
+                if ((c & bit) == 0) {
+                    g2d.drawLine(xs[c], ys[c], xs[c | bit], ys[c | bit]);
+                }
+            }
+        }
+        g2d.setStroke(new BasicStroke(1));
+    }
+    
+    /**
+     * Switches to preview frames until input has been idle for a moment
+     */
+    private void interact() {
+        interacting = true;
+        refineTimer.restart();
     }
     
     @Override
     public void mouseDragged(MouseEvent e) {
-        if (isRotating) {
+        if (draggedItem != null && dragStart != null) {
+            double[] point = floorPoint(e.getX(), e.getY(), draggedItem.getY());
+            if (point == null) return;
+            int dx = (int) (point[0] - dragStart[0]);
+            int dz = (int) (point[1] - dragStart[1]);
+            if (dx == 0 && dz == 0) return;
+            draggedItem.setX(draggedItem.getX() + dx);
+            draggedItem.setZ(draggedItem.getZ() + dz);
+            
+            // Keep the sub-unit remainder so slow drags at low zoom still move
+            dragStart[0] += dx;
+            dragStart[1] += dz;
+            
+            scene = null;
+            shadowsOutdated = true;
+            dragCommitPending = true;
+            if (!dragCommitTimer.isRunning()) {
+                dragCommitTimer.start();
+            }
+            interact();
+            drawingArea.repaint();
+        } else if (isRotating) {
             int x = e.getX();
             int y = e.getY();
             
@@ -644,6 +794,7 @@ public class Design3DPanel extends JPanel implements MouseMotionListener, MouseW
                     if (xRotation < -90) xRotation = -90;
                 }
                 
+                interact();
                 drawingArea.repaint(); // Request a repaint to update the view
             }
             
@@ -659,25 +810,52 @@ public class Design3DPanel extends JPanel implements MouseMotionListener, MouseW
     
     @Override
     public void mouseWheelMoved(MouseWheelEvent e) {
-        // Zoom in/out based on scroll direction
-        zoom += e.getWheelRotation() * -0.1f;
+        // Zoom in/out based on scroll direction, easing towards the new zoom
+        targetZoom += e.getWheelRotation() * -0.1f;
         
         // Limit zoom
-        if (zoom < 0.2f) zoom = 0.2f;
-        if (zoom > 3.0f) zoom = 3.0f;
+        if (targetZoom < 0.2f) targetZoom = 0.2f;
+        if (targetZoom > 3.0f) targetZoom = 3.0f;
         
-        drawingArea.repaint(); // Request a repaint to update the view
+        animations.start("zoom", this::easeZoom);
+    }
+    
+    /**
+     * Moves the zoom a time-based fraction of the way to the target zoom
+     */
+    private boolean easeZoom(double seconds) {
+        zoom += (targetZoom - zoom) * (float) (1 - Math.exp(-ZOOM_EASING * seconds));
+        boolean done = Math.abs(targetZoom - zoom) < 0.001f;
+        if (done) {
+            zoom = targetZoom;
+        }
+        interact();
+        return !done;
     }
     
     /**
-     * Resets the view to default rotation and zoom
+     * Resets the view to default rotation and zoom, easing there over a short tween
      */
     private void resetView() {
-        xRotation = 20.0f;
-        yRotation = 30.0f;
-        zRotation = 0.0f;
-        zoom = 1.0f;
-        drawingArea.repaint();
+        float startX = xRotation;
+        float startZ = zRotation;
+        float startY = yRotation;
+        // Turn the short way round
+        float turnY = ((30.0f - yRotation) % 360 + 540) % 360 - 180;
+        double[] elapsed = { 0 };
+        
+        animations.start("view", seconds -> {
+            elapsed[0] = Math.min(RESET_SECONDS, elapsed[0] + seconds);
+            double t = elapsed[0] / RESET_SECONDS;
+            float eased = (float) (t * t * (3 - 2 * t));
+            xRotation = startX + (20.0f - startX) * eased;
+            zRotation = startZ + (0.0f - startZ) * eased;
+            yRotation = ((startY + turnY * eased) % 360 + 360) % 360;
+            interact();
+            return elapsed[0] < RESET_SECONDS;
+        });
+        targetZoom = 1.0f;
+        animations.start("zoom", this::easeZoom);
     }
     
     /**
@@ -685,27 +863,21 @@ public class Design3DPanel extends JPanel implements MouseMotionListener, MouseW
      * @param direction 1 for right, -1 for left
      */
     private void startRotation(int direction) {
-        // Stop any existing rotation
-        stopRotation();
-        
-        // Create a new timer for rotation
-        rotationTimer = new Timer(50, unused -> {
-            yRotation += direction * 2.0f;
+        // Replaces any existing rotation
+        animations.start("turntable", seconds -> {
+            yRotation += direction * TURNTABLE_DEGREES_PER_SECOND * (float) seconds;
             yRotation = yRotation % 360;
             if (yRotation < 0) yRotation += 360;
-            drawingArea.repaint();
+            interact();
+            return true;
         });
-        
-        rotationTimer.start();
     }
     
     /**
      * Stops automatic rotation
      */
     private void stopRotation() {
-        if (rotationTimer != null && rotationTimer.isRunning()) {
-            rotationTimer.stop();
-        }
+        animations.stop("turntable");
     }
     
     // These methods are no longer needed as we're using the shared model
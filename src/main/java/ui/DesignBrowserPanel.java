@@ -0,0 +1,230 @@
+package ui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.text.DateFormat;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import model.DesignSummary;
+import service.BackgroundPool;
+import service.DesignService;
+import service.ThumbnailService;
+
+/**
+ * Grid of saved designs with their thumbnails, for tens of thousands of designs
+ * The list model holds only design ids. Summaries and thumbnails are
+ * fetched on the shared background pool for the rows that are on screen,
+ * plus one screen ahead, and kept in a small LRU cache. Scrolling never touches the
+ * disk on the Event Dispatch Thread, and the heap stays bounded whatever
+ * the number of designs. Requests for rows scrolled away before their turn
+ * are dropped. Cache state is confined to the Event Dispatch Thread.
+ */
+public class DesignBrowserPanel extends JPanel {
+    private static final int CELL_WIDTH = ThumbnailService.WIDTH + 16;
+    private static final int CELL_HEIGHT = ThumbnailService.HEIGHT + 44;
+
+    // Loaded rows kept; must hold well over two screens of cells, and bounds the heap at about 20 MB
+    private static final int CACHE_SIZE = 256;
+
+    private final DesignService designService;
+    private final ThumbnailService thumbnails;
+    private final List<String> ids;
+    private final JList<String> list;
+
+    private final Map<String, LoadedDesign> loaded = lruCache(CACHE_SIZE);
+    private final Set<String> pending = new HashSet<>();
+
+    // Rows worth loading, read by pool threads to skip requests that scrolled out of reach
+    private volatile int wantedFrom = 0;
+    private volatile int wantedTo = -1;
+
+    /**
+     * Creates a browser over all saved designs
+     * @param designService the service the designs are listed and summarized by
+     * @param thumbnails the thumbnail cache
+     * @param onOpen called with the id of a design the user opens, or null for a browse-only panel
+     */
+    public DesignBrowserPanel(DesignService designService, ThumbnailService thumbnails, Consumer<String> onOpen) {
+        this.designService = designService;
+        this.thumbnails = thumbnails;
+        this.ids = designService.listDesignIds();
+        setLayout(new BorderLayout());
+
+        // Fixed cell sizes keep the list from measuring every row
+        list = new JList<>(new AbstractListModel<String>() {
+            @Override
+            public int getSize() {
+                return ids.size();
+            }
+
+            @Override
+            public String getElementAt(int index) {
+                return ids.get(index);
+            }
+        });
+        list.setLayoutOrientation(JList.HORIZONTAL_WRAP);
+        list.setVisibleRowCount(-1);
+        list.setFixedCellWidth(CELL_WIDTH);
+        list.setFixedCellHeight(CELL_HEIGHT);
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setCellRenderer(new DesignCell());
+
+        JScrollPane scrollPane = new JScrollPane(list);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(CELL_HEIGHT / 4);
+        scrollPane.getViewport().addChangeListener(unused -> prefetch());
+        add(scrollPane, BorderLayout.CENTER);
+
+        JPanel bottomPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        bottomPanel.add(new JLabel(ids.size() + " designs"));
+        if (onOpen != null) {
+            JButton openButton = new JButton("Open");
+            openButton.addActionListener(unused -> {
+                if (list.getSelectedValue() != null) {
+                    onOpen.accept(list.getSelectedValue());
+                }
+            });
+            bottomPanel.add(openButton);
+            list.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    if (e.getClickCount() == 2 && list.getSelectedValue() != null) {
+                        onOpen.accept(list.getSelectedValue());
+                    }
+                }
+            });
+        }
+        add(bottomPanel, BorderLayout.SOUTH);
+    }
+
+    /**
+     * Stops the background loading; requests still queued on the shared pool are skipped
+     */
+    public void dispose() {
+        wantedFrom = 0;
+        wantedTo = -1;
+    }
+
+    /**
+     * Requests the rows on screen and one screen beyond them
+     * Called whenever the viewport scrolls or resizes, which covers every row that gets painted
+     */
+    private void prefetch() {
+        int first = list.getFirstVisibleIndex();
+        int last = list.getLastVisibleIndex();
+        if (first < 0 || last < 0) return;
+        int ahead = Math.min(ids.size() - 1, last + (last - first + 1));
+        wantedFrom = first;
+        wantedTo = ahead;
+        for (int index = first; index <= ahead; index++) {
+            request(index);
+        }
+    }
+
+    /**
+     * Loads a row's summary and thumbnail in the background unless they are cached or on their way
+     */
+    private void request(int index) {
+        String id = ids.get(index);
+        if (loaded.containsKey(id) || !pending.add(id)) return;
+
+        BackgroundPool.get().execute(() -> {
+            LoadedDesign design = null;
+            if (index >= wantedFrom && index <= wantedTo) {
+                try {
+                    design = new LoadedDesign(designService.loadSummary(id), thumbnails.getThumbnail(id));
+                } catch (Exception e) {
+                    // Cached as unreadable, so it is not requested again
+                    design = new LoadedDesign(null, null);
+                }
+            }
+            LoadedDesign result = design;
+            SwingUtilities.invokeLater(() -> {
+                pending.remove(id);
+                if (result != null) {
+                    loaded.put(id, result);
+                    Rectangle cell = list.getCellBounds(index, index);
+                    if (cell != null) {
+                        list.repaint(cell);
+                    }
+                }
+            });
+        });
+    }
+
+    private static <K, V> Map<K, V> lruCache(int capacity) {
+        return new LinkedHashMap<K, V>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Draws one design: its thumbnail, or a placeholder while it loads, with its name and details
+     */
+    private class DesignCell extends JComponent implements ListCellRenderer<String> {
+        private final DateFormat dateFormat = DateFormat.getDateInstance(DateFormat.MEDIUM);
+        private String id;
+        private boolean selected;
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends String> source, String value, int index,
+                                                      boolean isSelected, boolean cellHasFocus) {
+            this.id = value;
+            this.selected = isSelected;
+            return this;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D g2d = (Graphics2D) g;
+            g2d.setColor(selected ? list.getSelectionBackground() : list.getBackground());
+            g2d.fillRect(0, 0, getWidth(), getHeight());
+
+            int x = (getWidth() - ThumbnailService.WIDTH) / 2;
+            LoadedDesign design = loaded.get(id);
+            if (design != null && design.thumbnail != null) {
+                g2d.drawImage(design.thumbnail, x, 6, null);
+            } else {
+                g2d.setColor(new Color(225, 225, 225));
+                g2d.fillRect(x, 6, ThumbnailService.WIDTH, ThumbnailService.HEIGHT);
+            }
+
+            g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g2d.setColor(selected ? list.getSelectionForeground() : list.getForeground());
+            FontMetrics fm = g2d.getFontMetrics();
+            int textY = 6 + ThumbnailService.HEIGHT + fm.getAscent() + 2;
+            if (design != null && design.summary != null) {
+                DesignSummary summary = design.summary;
+                g2d.drawString(summary.getName(), x, textY);
+                g2d.drawString(summary.getItemCount() + " items, "
+                    + dateFormat.format(new Date(summary.getLastModifiedTime())), x, textY + fm.getHeight());
+            } else if (design != null) {
+                g2d.drawString("Unreadable design", x, textY);
+            }
+        }
+    }
+
+    /**
+     * A row's summary and thumbnail; both are null when the design could not be read
+     */
+    private static final class LoadedDesign {
+        final DesignSummary summary;
+        final BufferedImage thumbnail;
+
+        LoadedDesign(DesignSummary summary, BufferedImage thumbnail) {
+            this.summary = summary;
+            this.thumbnail = thumbnail;
+        }
+    }
+}
@@ -2,20 +2,40 @@ package ui;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import model.Design;
 import model.DesignModel;
 import model.FurnitureItemModel;
 import service.DesignService;
+import service.ShadingService;
+import service.ThumbnailService;
 
 public class DesignerDashboard extends JFrame {
+    private static final Logger LOGGER = Logger.getLogger(DesignerDashboard.class.getName());
+    
     private DesignModel designModel;
     private Design2DPanel design2DPanel;
     private Design3DPanel design3DPanel;
+    private JPanel design3DTab;
     private RoomConfigPanel roomConfigPanel;
     private DesignService designService;
+    private ShadingService shadingService;
+    private ThumbnailService thumbnailService;
     
     public DesignerDashboard() {
         setTitle("Furniture Designer Dashboard");
@@ -30,9 +50,12 @@ public class DesignerDashboard extends JFrame {
         // Create the shared design model
         designModel = new DesignModel();
         
+        // Lighting cache shared by the 3D view and exports
+        shadingService = new ShadingService(designModel);
+        
         // Create panels with the shared model
+        // The 3D panel is built the first time its tab is shown
         design2DPanel = new Design2DPanel(designModel);
-        design3DPanel = new Design3DPanel(designModel);
         roomConfigPanel = new RoomConfigPanel(designModel);
 
         // Toolbar for actions
@@ -43,24 +66,64 @@ public class DesignerDashboard extends JFrame {
         JButton shadeButton = new JButton("Shade");
         JButton colorButton = new JButton("Color");
         JButton saveButton = new JButton("Save");
+        JButton browseButton = new JButton("Browse");
+        JButton exportButton = new JButton("Export");
         JButton editButton = new JButton("Edit");
         JButton deleteButton = new JButton("Delete");
+        JButton undoButton = new JButton("Undo");
+        JButton redoButton = new JButton("Redo");
         
         // Add action listeners
         scaleButton.addActionListener(e -> scaleSelectedItem());
         shadeButton.addActionListener(e -> adjustShading());
         colorButton.addActionListener(e -> changeItemColor());
         saveButton.addActionListener(e -> saveDesign());
+        browseButton.addActionListener(e -> browseDesigns());
+        exportButton.addActionListener(e -> exportImage());
         editButton.addActionListener(e -> editSelectedItem());
         deleteButton.addActionListener(e -> design2DPanel.deleteSelectedItem());
+        undoButton.addActionListener(e -> designModel.undo());
+        redoButton.addActionListener(e -> designModel.redo());
+        
+        // Every edit notifies the model's listeners, so the buttons follow the history
+        undoButton.setEnabled(false);
+        redoButton.setEnabled(false);
+        designModel.addListener(changeType -> {
+            undoButton.setEnabled(designModel.canUndo());
+            redoButton.setEnabled(designModel.canRedo());
+        });
+        
+        // Ctrl+Z and Ctrl+Y work from anywhere in the window
+        JRootPane root = getRootPane();
+        root.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(
+            KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK), "undo");
+        root.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(
+            KeyStroke.getKeyStroke(KeyEvent.VK_Y, InputEvent.CTRL_DOWN_MASK), "redo");
+        root.getActionMap().put("undo", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                designModel.undo();
+            }
+        });
+        root.getActionMap().put("redo", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                designModel.redo();
+            }
+        });
         
         // Add buttons to toolbar
         toolBar.add(scaleButton);
         toolBar.add(shadeButton);
         toolBar.add(colorButton);
         toolBar.add(saveButton);
+        toolBar.add(browseButton);
+        toolBar.add(exportButton);
         toolBar.add(editButton);
         toolBar.add(deleteButton);
+        toolBar.addSeparator();
+        toolBar.add(undoButton);
+        toolBar.add(redoButton);
         add(toolBar, BorderLayout.NORTH);
 
         // Room configuration panel
@@ -68,8 +131,14 @@ public class DesignerDashboard extends JFrame {
 
         // Tabbed pane for 2D/3D
         JTabbedPane tabbedPane = new JTabbedPane();
+        design3DTab = new JPanel(new BorderLayout());
         tabbedPane.addTab("2D Design", design2DPanel);
-        tabbedPane.addTab("3D Design", design3DPanel);
+        tabbedPane.addTab("3D Design", design3DTab);
+        tabbedPane.addChangeListener(e -> {
+            if (tabbedPane.getSelectedComponent() == design3DTab) {
+                get3DPanel();
+            }
+        });
         add(tabbedPane, BorderLayout.CENTER);
 
         setVisible(true);
@@ -107,10 +176,7 @@ public class DesignerDashboard extends JFrame {
                 int newDepth = (int)(item.getDepth() * scaleFactor);
                 
                 // Update the model
-                item.setWidth(newWidth);
-                item.setHeight(newHeight);
-                item.setDepth(newDepth);
-                designModel.updateFurnitureItem(item);
+                designModel.resizeFurnitureItem(item, newWidth, newHeight, newDepth);
             } catch (NumberFormatException e) {
                 JOptionPane.showMessageDialog(this, "Please enter a valid number", "Invalid Input", JOptionPane.ERROR_MESSAGE);
             }
@@ -162,8 +228,7 @@ public class DesignerDashboard extends JFrame {
             designModel.setLightIntensity(lightSlider.getValue() / 100.0f);
             designModel.setShadowIntensity(shadowSlider.getValue() / 100.0f);
             designModel.setContrast(contrastSlider.getValue() / 100.0f);
-            // Notify listeners that lighting has changed
-            design3DPanel.onModelChanged("LIGHTING_CHANGED");
+            // The model notifies its listeners that lighting has changed
         }
     }
     
@@ -184,8 +249,7 @@ public class DesignerDashboard extends JFrame {
         
         if (newColor != null) {
             // Update the model
-            item.setColor(newColor);
-            designModel.updateFurnitureItem(item);
+            designModel.setFurnitureItemColor(item, newColor);
         }
     }
     
@@ -198,7 +262,7 @@ public class DesignerDashboard extends JFrame {
         if (name != null && !name.isEmpty()) {
             try {
                 // Convert DesignModel to Design for saving
-                Design design = convertModelToDesign(name);
+                Design design = designModel.toDesign(name, "current_user");
                 
                 // Save the design using the design service
                 designService.saveDesign(design);
@@ -217,35 +281,296 @@ public class DesignerDashboard extends JFrame {
     }
     
     /**
-     * Converts the current DesignModel to a Design object for saving
-     * @param name Name to give the design
-     * @return Design object ready to be saved
+     * Shows the saved designs with their thumbnails
+     */
+    private void browseDesigns() {
+        if (thumbnailService == null) {
+            thumbnailService = new ThumbnailService(designService, new PlanThumbnailRenderer());
+        }
+        JDialog dialog = new JDialog(this, "Saved Designs", true);
+        DesignBrowserPanel browser = new DesignBrowserPanel(designService, thumbnailService, id -> {
+            dialog.dispose();
+            openDesign(id);
+        });
+        
+        dialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        dialog.add(browser);
+        dialog.setSize(760, 540);
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+        
+        // The modal dialog has been closed
+        browser.dispose();
+        try {
+            thumbnailService.saveIndex();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not save the thumbnail index after browsing designs: "
+                + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Exports the 2D plan or the current 3D view into the exports folder
+     * The plan can be written as a vector SVG or PDF; images are rendered and
+     * written in the background, and editing can continue meanwhile
+     */
+    private void exportImage() {
+        JComboBox<String> viewBox = new JComboBox<>(new String[] { "2D Plan (PNG)", "3D View (PNG)",
+                "2D Plan (SVG)", "2D Plan (PDF)", "3D Scene (glTF)", "3D Scene (OBJ)", "3D Turntable (PNG)" });
+        JSpinner widthSpinner = new JSpinner(new SpinnerNumberModel(8000, 16, 65535, 100));
+        JSpinner heightSpinner = new JSpinner(new SpinnerNumberModel(6000, 16, 65535, 100));
+        JSpinner framesSpinner = new JSpinner(new SpinnerNumberModel(360, 2, 3600, 10));
+        framesSpinner.setEnabled(false);
+        // Only images have a pixel size, and only the turntable has frames
+        viewBox.addActionListener(e -> {
+            int selected = viewBox.getSelectedIndex();
+            boolean image = selected < 2 || selected == 6;
+            widthSpinner.setEnabled(image);
+            heightSpinner.setEnabled(image);
+            framesSpinner.setEnabled(selected == 6);
+            if (selected == 6) {
+                widthSpinner.setValue(1920);
+                heightSpinner.setValue(1080);
+            }
+        });
+        
+        JPanel panel = new JPanel(new GridLayout(4, 2, 5, 5));
+        panel.add(new JLabel("View:"));
+        panel.add(viewBox);
+        panel.add(new JLabel("Width (px):"));
+        panel.add(widthSpinner);
+        panel.add(new JLabel("Height (px):"));
+        panel.add(heightSpinner);
+        panel.add(new JLabel("Turntable frames:"));
+        panel.add(framesSpinner);
+        
+        int result = JOptionPane.showConfirmDialog(this, panel, "Export",
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (result != JOptionPane.OK_OPTION) return;
+        
+        String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        int choice = viewBox.getSelectedIndex();
+        if (choice == 2 || choice == 3) {
+            exportVectorPlan(new File("exports", "plan-" + timestamp + (choice == 2 ? ".svg" : ".pdf")));
+            return;
+        }
+        
+        int width = (Integer) widthSpinner.getValue();
+        int height = (Integer) heightSpinner.getValue();
+        boolean plan = choice == 0;
+        if (choice == 4 || choice == 5) {
+            exportScene(new File("exports", "scene-" + timestamp + (choice == 4 ? ".glb" : ".obj")));
+            return;
+        }
+        if (!plan && design3DPanel == null) {
+            JOptionPane.showMessageDialog(this, 
+                    "Open the 3D Design tab to set up the view first", 
+                    "Export", 
+                    JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        if (choice == 6) {
+            exportTurntable((Integer) framesSpinner.getValue(), width, height, "turntable-" + timestamp);
+            return;
+        }
+        
+        // The views are captured now, on the Event Dispatch Thread
+        TiledImageExporter.TileSource source = plan
+                ? design2DPanel.createExportSource(width, height)
+                : design3DPanel.createExportSource(width, height);
+        File file = new File("exports", (plan ? "plan-" : "view-") + timestamp + ".png");
+        
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                TiledImageExporter.export(source, width, height, file);
+                return null;
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    get();
+                    JOptionPane.showMessageDialog(DesignerDashboard.this, 
+                            "Image exported to " + file.getPath(), 
+                            "Export Complete", 
+                            JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(DesignerDashboard.this, 
+                            "Error exporting image: " + cause.getMessage(), 
+                            "Export Error", 
+                            JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+    
+    /**
+     * Writes the 2D plan as SVG or PDF, chosen by the file extension
+     * The plan is captured now, on the Event Dispatch Thread, and written in the background
+     * @param file the file to write
+     */
+    private void exportVectorPlan(File file) {
+        PlanVectorExporter.Plan plan = PlanVectorExporter.capture(designModel);
+        
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                ExportFiles.ensureDirectory(file.getAbsoluteFile().getParentFile());
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16)) {
+                    if (file.getName().endsWith(".svg")) {
+                        PlanVectorExporter.writeSvg(plan, out);
+                    } else {
+                        PlanVectorExporter.writePdf(plan, out);
+                    }
+                }
+                return null;
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    get();
+                    JOptionPane.showMessageDialog(DesignerDashboard.this, 
+                            "Plan exported to " + file.getPath(), 
+                            "Export Complete", 
+                            JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(DesignerDashboard.this, 
+                            "Error exporting plan: " + cause.getMessage(), 
+                            "Export Error", 
+                            JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+    
+    /**
+     * Renders a full turn of the 3D view as numbered PNG frames in the background, showing the progress
+     * @param frames the number of frames
+     * @param width the frame width in pixels
+     * @param height the frame height in pixels
+     * @param prefix the start of each frame's file name
      */
-    private Design convertModelToDesign(String name) {
-        // Create a new design with the specified name
-        Design design = new Design(name, "current_user");
-        
-        // Copy room properties
-        design.setRoomWidth(designModel.getRoomWidth());
-        design.setRoomLength(designModel.getRoomLength());
-        design.setRoomShape(designModel.getRoomShape());
-        design.setRoomColor(designModel.getRoomColor());
-        
-        // Convert furniture items from FurnitureItemModel to Design.FurnitureItem
-        for (FurnitureItemModel modelItem : designModel.getFurnitureItems()) {
-            // Create a new furniture item for the design
-            Design.FurnitureItem item = new Design.FurnitureItem(
-                modelItem.getX(),
-                modelItem.getY(),
-                modelItem.getWidth(),
-                modelItem.getHeight(),
-                modelItem.getColor(),
-                modelItem.getName()
-            );
-            design.addFurnitureItem(item);
+    private void exportTurntable(int frames, int width, int height, String prefix) {
+        // The view is captured now, on the Event Dispatch Thread
+        TurntableExporter.FrameSource source = design3DPanel.createTurntableSource(width, height);
+        float start = design3DPanel.getYRotation();
+        File directory = new File("exports");
+        ProgressMonitor monitor = new ProgressMonitor(this, "Rendering turntable frames", null, 0, frames);
+        monitor.setMillisToDecideToPopup(0);
+        // Set on the Event Dispatch Thread when Cancel is seen, read by the pool threads
+        AtomicBoolean cancelled = new AtomicBoolean();
+        
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                TurntableExporter.export(source, start, frames, width, height, directory, prefix,
+                        finished -> SwingUtilities.invokeLater(() -> {
+                            if (monitor.isCanceled()) {
+                                cancelled.set(true);
+                            } else {
+                                monitor.setProgress(finished);
+                            }
+                        }),
+                        cancelled::get);
+                return null;
+            }
+            
+            @Override
+            protected void done() {
+                monitor.close();
+                try {
+                    get();
+                    JOptionPane.showMessageDialog(DesignerDashboard.this, 
+                            frames + " frames exported to " + new File(directory, prefix + "-*.png").getPath(), 
+                            "Export Complete", 
+                            JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof CancellationException) {
+                        JOptionPane.showMessageDialog(DesignerDashboard.this, 
+                                "Turntable export cancelled; frames already written are kept in " + directory.getPath(), 
+                                "Export Cancelled", 
+                                JOptionPane.INFORMATION_MESSAGE);
+                        return;
+                    }
+                    JOptionPane.showMessageDialog(DesignerDashboard.this, 
+                            "Error exporting turntable: " + cause.getMessage(), 
+                            "Export Error", 
+                            JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+    
+    /**
+     * Gets the 3D view, creating it in its tab the first time it is needed
+     */
+    private Design3DPanel get3DPanel() {
+        if (design3DPanel == null) {
+            design3DPanel = new Design3DPanel(designModel, shadingService);
+            design3DTab.add(design3DPanel, BorderLayout.CENTER);
+            design3DTab.revalidate();
         }
+        return design3DPanel;
+    }
+    
+    /**
+     * Writes the 3D room and furniture as glTF or OBJ, chosen by the file extension
+     * The geometry is taken from the model now, on the Event Dispatch Thread,
+     * and written in the background; no 3D view is needed
+     * @param file the file to write
+     */
+    private void exportScene(File file) {
+        SceneGeometryExporter exporter = Design3DPanel.createGeometryExport(designModel);
         
-        return design;
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                ExportFiles.ensureDirectory(file.getAbsoluteFile().getParentFile());
+                if (file.getName().endsWith(".glb")) {
+                    exporter.writeGlb(file);
+                } else {
+                    exporter.writeObj(file);
+                }
+                return null;
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    get();
+                    JOptionPane.showMessageDialog(DesignerDashboard.this, 
+                            "Scene exported to " + file.getPath(), 
+                            "Export Complete", 
+                            JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(DesignerDashboard.this, 
+                            "Error exporting scene: " + cause.getMessage(), 
+                            "Export Error", 
+                            JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+    
+    /**
+     * Replaces the current design with a saved one
+     * @param designId the id of the saved design
+     */
+    private void openDesign(String designId) {
+        try {
+            designModel.loadFrom(designService.loadDesign(designId));
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this, 
+                    "Error opening design: " + e.getMessage(), 
+                    "Open Error", 
+                    JOptionPane.ERROR_MESSAGE);
+        }
     }
     
     /**
@@ -285,12 +610,11 @@ public class DesignerDashboard extends JFrame {
         
         if (result == JOptionPane.OK_OPTION) {
             try {
-                // Update the model
-                item.setName(nameField.getText());
-                item.setWidth(Integer.parseInt(widthField.getText()));
-                item.setHeight(Integer.parseInt(heightField.getText()));
-                item.setDepth(Integer.parseInt(depthField.getText()));
-                designModel.updateFurnitureItem(item);
+                // Update the model as one undo step
+                designModel.setFurnitureItemProperties(item, nameField.getText(),
+                    Integer.parseInt(widthField.getText()),
+                    Integer.parseInt(heightField.getText()),
+                    Integer.parseInt(depthField.getText()));
             } catch (NumberFormatException e) {
                 JOptionPane.showMessageDialog(this, "Please enter valid numbers for dimensions", "Invalid Input", JOptionPane.ERROR_MESSAGE);
             }
@@ -0,0 +1,27 @@
+package ui;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * File handling shared by the exporters
+ */
+final class ExportFiles {
+    private ExportFiles() {
+    }
+
+    /**
+     * Makes sure an output directory exists, creating it if needed
+     * @param directory the directory
+     * @throws IOException if the path is taken by a file or the directory cannot be created
+     */
+    static void ensureDirectory(File directory) throws IOException {
+        if (directory.isDirectory()) return;
+        if (directory.exists()) {
+            throw new IOException(directory.getPath() + " exists but is not a directory");
+        }
+        if (!directory.mkdirs() && !directory.isDirectory()) {
+            throw new IOException("Cannot create directory " + directory.getPath());
+        }
+    }
+}
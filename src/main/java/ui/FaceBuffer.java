@@ -0,0 +1,237 @@
+package ui;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+/**
+ * Reusable buffer of projected, front-facing quads for one frame
+ * Faces are collected in screen space with their camera depth and then
+ * ordered back to front for painter's-algorithm drawing.
+ * The arrays grow as needed and are reused across frames. When a frame
+ * holds the same faces as the previous one, as while orbiting without
+ * crossing a culling boundary, the previous order is fixed up with an
+ * insertion sort instead of sorting from scratch.
+ */
+final class FaceBuffer {
+    // Corner indices of the six box faces (bit 0 = max x, bit 1 = max y, bit 2 = max z)
+    // in the order -x, +x, -y, +y, -z, +z
+    private static final int[][] BOX_FACES = {
+        { 0, 4, 6, 2 }, { 1, 3, 7, 5 },
+        { 0, 1, 5, 4 }, { 2, 6, 7, 3 },
+        { 0, 2, 3, 1 }, { 4, 5, 7, 6 }
+    };
+    private static final double[][] BOX_NORMALS = {
+        { -1, 0, 0 }, { 1, 0, 0 },
+        { 0, -1, 0 }, { 0, 1, 0 },
+        { 0, 0, -1 }, { 0, 0, 1 }
+    };
+
+    private int count = 0;
+    // Faces are identified by their position among all candidate faces, culled or not
+    private int candidates = 0;
+    private int[] ids = new int[64];
+    private Object content;
+    private boolean sorted = false;
+    private float[] xs = new float[256];
+    private float[] ys = new float[256];
+    private float[] zs = new float[256];
+    private float[] depths = new float[64];
+    private Color[] colors = new Color[64];
+    private long[] order = new long[64];
+
+    // The previous frame, kept to reuse its order
+    private Object previousContent;
+    private int previousCount = 0;
+    private int[] previousIds = new int[64];
+    private long[] previousOrder = new long[64];
+
+    // Per-box scratch space for the projected corners
+    private final float[] cornerX = new float[8];
+    private final float[] cornerY = new float[8];
+    private final float[] cornerZ = new float[8];
+    private final boolean[] visible = new boolean[6];
+
+    /**
+     * Empties the buffer for a new frame
+     * @param content the immutable source of the faces, such as the scene;
+     *                the previous order is only reused for the same content
+     */
+    void clear(Object content) {
+        int[] swapIds = previousIds;
+        previousIds = ids;
+        ids = swapIds;
+        long[] swapOrder = previousOrder;
+        previousOrder = order;
+        order = swapOrder;
+        previousCount = count;
+        // A frame that was never sorted has no order worth keeping
+        previousContent = sorted ? this.content : null;
+
+        this.content = content;
+        count = 0;
+        candidates = 0;
+        sorted = false;
+    }
+
+    /**
+     * Gets the number of faces in the buffer
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * Projects the front-facing faces of every part of a mesh
+     * @param mesh the mesh to add
+     * @param camera the current camera
+     * @param x world x of the mesh origin
+     * @param y world y of the mesh origin
+     * @param z world z of the mesh origin
+     */
+    void addMesh(FurnitureMesh mesh, Camera3D camera, double x, double y, double z) {
+        for (int face = 0; face < 6; face++) {
+            double[] n = BOX_NORMALS[face];
+            visible[face] = camera.isFrontFacing(n[0], n[1], n[2]);
+        }
+        float[] bounds = mesh.bounds;
+        for (int part = 0; part < mesh.partCount(); part++) {
+            int b = part * 6;
+            for (int corner = 0; corner < 8; corner++) {
+                double px = x + bounds[b + ((corner & 1) == 0 ? 0 : 3)];
+                double py = y + bounds[b + ((corner & 2) == 0 ? 1 : 4)];
+                double pz = z + bounds[b + ((corner & 4) == 0 ? 2 : 5)];
+                cornerX[corner] = (float) camera.screenX(px, py, pz);
+                cornerY[corner] = (float) camera.screenY(px, py, pz);
+                cornerZ[corner] = (float) camera.depth(px, py, pz);
+            }
+            for (int face = 0; face < 6; face++) {
+                Color color = mesh.faceColors[part * 6 + face];
+                if (visible[face] && color != null) {
+                    int[] c = BOX_FACES[face];
+                    addProjected(c[0], c[1], c[2], c[3], color);
+                }
+                candidates++;
+            }
+        }
+    }
+
+    /**
+     * Projects a quad given in world coordinates, if it faces the viewer
+     * @param world 12 values: x, y, z of each corner
+     * @param nx world normal x
+     * @param ny world normal y
+     * @param nz world normal z
+     * @param color the face color
+     */
+    void addQuad(double[] world, double nx, double ny, double nz, Camera3D camera, Color color) {
+        if (!camera.isFrontFacing(nx, ny, nz)) {
+            candidates++;
+            return;
+        }
+        for (int i = 0; i < 4; i++) {
+            double px = world[i * 3], py = world[i * 3 + 1], pz = world[i * 3 + 2];
+            cornerX[i] = (float) camera.screenX(px, py, pz);
+            cornerY[i] = (float) camera.screenY(px, py, pz);
+            cornerZ[i] = (float) camera.depth(px, py, pz);
+        }
+        addProjected(0, 1, 2, 3, color);
+        candidates++;
+    }
+
+    private void addProjected(int c0, int c1, int c2, int c3, Color color) {
+        ensureCapacity(count + 1);
+        int v = count * 4;
+        xs[v] = cornerX[c0]; ys[v] = cornerY[c0]; zs[v] = cornerZ[c0];
+        xs[v + 1] = cornerX[c1]; ys[v + 1] = cornerY[c1]; zs[v + 1] = cornerZ[c1];
+        xs[v + 2] = cornerX[c2]; ys[v + 2] = cornerY[c2]; zs[v + 2] = cornerZ[c2];
+        xs[v + 3] = cornerX[c3]; ys[v + 3] = cornerY[c3]; zs[v + 3] = cornerZ[c3];
+        // Farthest corner: faces resting on larger ones (pillows, table tops) sort after them
+        depths[count] = Math.min(Math.min(zs[v], zs[v + 1]), Math.min(zs[v + 2], zs[v + 3]));
+        colors[count] = color;
+        ids[count] = candidates;
+        count++;
+    }
+
+    /**
+     * Orders the faces back to front by camera depth
+     * Keys pack the sortable depth bits above the face index, so sorting needs no boxing
+     */
+    void sortBackToFront() {
+        if (content == previousContent && count == previousCount
+            && Arrays.equals(ids, 0, count, previousIds, 0, count)) {
+            // Same faces as the last frame: refresh the keys in the last order, which is nearly sorted
+            for (int i = 0; i < count; i++) {
+                int face = (int) previousOrder[i];
+                order[i] = ((long) sortableBits(depths[face]) << 32) | face;
+            }
+            if (!insertionSort(order, count, 4L * count)) {
+                // A big camera jump left the old order far from sorted
+                Arrays.sort(order, 0, count);
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                order[i] = ((long) sortableBits(depths[i]) << 32) | i;
+            }
+            Arrays.sort(order, 0, count);
+        }
+        sorted = true;
+    }
+
+    /**
+     * Sorts nearly sorted keys, giving up once they turn out not to be
+     * @param maxShifts the number of element moves allowed before giving up
+     * @return true if the keys are sorted, false if the limit was hit; the keys are then permuted but unsorted
+     */
+    private static boolean insertionSort(long[] keys, int count, long maxShifts) {
+        long shifts = 0;
+        for (int i = 1; i < count; i++) {
+            long key = keys[i];
+            int j = i - 1;
+            while (j >= 0 && keys[j] > key) {
+                keys[j + 1] = keys[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            shifts += i - 1 - j;
+            if (shifts > maxShifts) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the face drawn at a position in back-to-front order
+     * @param position the draw position, from 0 to size() - 1
+     * @return the face index
+     */
+    int faceAt(int position) {
+        return (int) order[position];
+    }
+
+    float x(int face, int corner) { return xs[face * 4 + corner]; }
+    float y(int face, int corner) { return ys[face * 4 + corner]; }
+    float z(int face, int corner) { return zs[face * 4 + corner]; }
+    Color color(int face) { return colors[face]; }
+
+    private void ensureCapacity(int faces) {
+        if (faces <= depths.length) return;
+        int capacity = Math.max(faces, depths.length * 2);
+        xs = Arrays.copyOf(xs, capacity * 4);
+        ys = Arrays.copyOf(ys, capacity * 4);
+        zs = Arrays.copyOf(zs, capacity * 4);
+        depths = Arrays.copyOf(depths, capacity);
+        colors = Arrays.copyOf(colors, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        order = Arrays.copyOf(order, capacity);
+        previousIds = Arrays.copyOf(previousIds, capacity);
+        previousOrder = Arrays.copyOf(previousOrder, capacity);
+    }
+
+    /**
+     * Maps a float to an int with the same ordering, shifted so that the
+     * result is non-negative and sorts correctly as the high half of a long
+     */
+    private static int sortableBits(float value) {
+        int bits = Float.floatToIntBits(value);
+        return (bits < 0 ? ~bits : bits | 0x80000000) >>> 1;
+    }
+}
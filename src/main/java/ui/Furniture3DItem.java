@@ -1,5 +1,8 @@
 package ui;
 
+import model.ColorPool;
+import model.FurnitureCatalog;
+
 import java.awt.Color;
 
 /**
@@ -7,26 +10,35 @@ import java.awt.Color;
  */
 public class Furniture3DItem {
     private String name;
+    // Resolved once, so rendering never looks the name up
+    private final FurnitureCatalog.Type type;
     private int x, y, z;
     private int width, height, depth;
     private Color color;
     private float shadeIntensity = 0.0f;
     private double scale = 1.0;
     
+    // Cached mesh and the panel mesh generation it was resolved in
+    private FurnitureMesh mesh;
+    private int meshGeneration;
+    
     public Furniture3DItem(String name, int x, int y, int z, int width, int height, int depth, Color color) {
-        this.name = name;
+        this.name = FurnitureCatalog.internName(name);
+        this.type = FurnitureCatalog.get(name);
         this.x = x;
         this.y = y;
         this.z = z;
         this.width = width;
         this.height = height;
         this.depth = depth;
-        this.color = color;
+        this.color = ColorPool.get(color);
     }
     
     // Getters and setters
     public String getName() { return name; }
     
+    public FurnitureCatalog.Type getType() { return type; }
+    
     public int getX() { return x; }
     public void setX(int x) { this.x = x; }
     
@@ -37,16 +49,24 @@ public class Furniture3DItem {
     public void setZ(int z) { this.z = z; }
     
     public int getWidth() { return width; }
-    public void setWidth(int width) { this.width = width; }
+    public void setWidth(int width) {
+        if (this.width != width) { this.width = width; mesh = null; }
+    }
     
     public int getHeight() { return height; }
-    public void setHeight(int height) { this.height = height; }
+    public void setHeight(int height) {
+        if (this.height != height) { this.height = height; mesh = null; }
+    }
     
     public int getDepth() { return depth; }
-    public void setDepth(int depth) { this.depth = depth; }
+    public void setDepth(int depth) {
+        if (this.depth != depth) { this.depth = depth; mesh = null; }
+    }
     
     public Color getColor() { return color; }
-    public void setColor(Color color) { this.color = color; }
+    public void setColor(Color color) {
+        if (!this.color.equals(color)) { this.color = ColorPool.get(color); mesh = null; }
+    }
     
     public float getShadeIntensity() { return shadeIntensity; }
     public void setShadeIntensity(float shadeIntensity) { this.shadeIntensity = shadeIntensity; }
@@ -58,6 +78,17 @@ public class Furniture3DItem {
         this.width = (int)(this.width * scale);
         this.height = (int)(this.height * scale);
         this.depth = (int)(this.depth * scale);
+        this.mesh = null;
+    }
+    
+    // Mesh cache, valid only for the generation it was stored in
+    FurnitureMesh getMesh(int generation) {
+        return generation == meshGeneration ? mesh : null;
+    }
+    
+    void setMesh(FurnitureMesh mesh, int generation) {
+        this.mesh = mesh;
+        this.meshGeneration = generation;
     }
     
     // Apply shading to the color
@@ -65,6 +96,6 @@ public class Furniture3DItem {
         int r = (int)(color.getRed() * (1.0f - shadeIntensity));
         int g = (int)(color.getGreen() * (1.0f - shadeIntensity));
         int b = (int)(color.getBlue() * (1.0f - shadeIntensity));
-        return new Color(r, g, b);
+        return ColorPool.get(r, g, b);
     }
 }
@@ -0,0 +1,270 @@
+package ui;
+
+import model.FurnitureCatalog;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+/**
+ * Pre-built part boxes of one furniture type at one size and color
+ * Geometry is relative to the item origin, so a mesh is shared by all
+ * identical items and each frame only projects it into place.
+ * Local space has x along the item width, y up to the item depth (its
+ * vertical size) and z along the item height (its length on the 2D plan).
+ */
+class FurnitureMesh {
+    private static final Color MATTRESS_COLOR = new Color(220, 220, 220);
+    private static final Color PILLOW_COLOR = new Color(240, 240, 240);
+    private static final Color BLANKET_COLOR = new Color(70, 130, 180);
+
+    // Per part: min x, min y, min z, max x, max y, max z
+    float[] bounds = new float[6 * 8];
+    // Per part: the colors of its -x, +x, -y, +y, -z and +z faces; null for faces hidden by contact
+    Color[] faceColors = new Color[6 * 8];
+    // Per part: the unshaded part color
+    Color[] partColors = new Color[8];
+    private int parts = 0;
+
+    private FurnitureMesh() {
+    }
+
+    /**
+     * Gets the number of part boxes
+     */
+    int partCount() {
+        return parts;
+    }
+
+    /**
+     * Builds the mesh for a furniture type
+     * @param type the furniture type
+     * @param width the item size along x
+     * @param height the item size along z (its length on the 2D plan)
+     * @param depth the item's vertical size
+     * @param litColor the item color with lighting applied
+     * @param baseColor the item color without lighting, used for generic boxes
+     * @return the new mesh
+     */
+    static FurnitureMesh build(FurnitureCatalog.Type type, int width, int height, int depth, Color litColor, Color baseColor) {
+        FurnitureMesh mesh = new FurnitureMesh();
+        switch (type.getForm()) {
+            case TABLE:
+                mesh.addTable(width, height, depth, litColor);
+                break;
+            case CHAIR:
+                mesh.addChair(width, height, depth, litColor);
+                break;
+            case SOFA:
+                mesh.addSofa(width, height, depth, litColor);
+                break;
+            case BED:
+                mesh.addBed(width, height, depth, litColor);
+                break;
+            case WARDROBE:
+                mesh.addWardrobe(width, height, depth, litColor);
+                break;
+            case LAMP:
+                mesh.addLamp(width, height, depth, litColor);
+                break;
+            default:
+                // A simple box for unknown furniture types
+                mesh.addBox(0, 0, 0, width, depth, height, baseColor);
+        }
+        mesh.trim();
+        return mesh;
+    }
+
+    /**
+     * Adds a part box; the top is drawn brighter and the x-facing sides darker
+     */
+    private void addBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ, Color color) {
+        if (parts == partColors.length) {
+            bounds = Arrays.copyOf(bounds, parts * 12);
+            faceColors = Arrays.copyOf(faceColors, parts * 12);
+            partColors = Arrays.copyOf(partColors, parts * 2);
+        }
+        int b = parts * 6;
+        bounds[b] = (float) minX;
+        bounds[b + 1] = (float) minY;
+        bounds[b + 2] = (float) minZ;
+        bounds[b + 3] = (float) maxX;
+        bounds[b + 4] = (float) maxY;
+        bounds[b + 5] = (float) maxZ;
+
+        Color darker = color.darker();
+        faceColors[b] = darker;
+        faceColors[b + 1] = darker;
+        faceColors[b + 2] = darker;
+        faceColors[b + 3] = color.brighter();
+        faceColors[b + 4] = color;
+        faceColors[b + 5] = color;
+        partColors[parts] = color;
+        parts++;
+    }
+
+    private void trim() {
+        bounds = Arrays.copyOf(bounds, parts * 6);
+        faceColors = Arrays.copyOf(faceColors, parts * 6);
+        partColors = Arrays.copyOf(partColors, parts);
+        hideContactFaces();
+    }
+
+    /**
+     * Drops faces pressed flat against another part, such as the tops of table legs,
+     * and faces hidden behind a larger flush face of another part
+     * They can never be seen, and neither a painter's sort nor a depth test can order coplanar faces reliably
+     */
+    private void hideContactFaces() {
+        for (int part = 0; part < parts; part++) {
+            for (int face = 0; face < 6; face++) {
+                int axis = face / 2;
+                boolean max = face % 2 == 1;
+                float plane = bounds[part * 6 + axis + (max ? 3 : 0)];
+
+                for (int other = 0; other < parts && faceColors[part * 6 + face] != null; other++) {
+                    if (other == part) continue;
+                    if (!covers(other, part, (axis + 1) % 3) || !covers(other, part, (axis + 2) % 3)) continue;
+                    // The other part starts (or ends) exactly where this face lies
+                    boolean touching = bounds[other * 6 + axis + (max ? 0 : 3)] == plane;
+                    // Or its matching face lies in the same plane, like a headboard flush with the bed frame;
+                    // of two identical faces only the later part's is kept
+                    boolean flush = bounds[other * 6 + axis + (max ? 3 : 0)] == plane
+                        && faceColors[other * 6 + face] != null
+                        && (other > part || !covers(part, other, (axis + 1) % 3) || !covers(part, other, (axis + 2) % 3));
+                    if (touching || flush) {
+                        faceColors[part * 6 + face] = null;
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean covers(int outer, int inner, int axis) {
+        return bounds[outer * 6 + axis] <= bounds[inner * 6 + axis]
+            && bounds[outer * 6 + axis + 3] >= bounds[inner * 6 + axis + 3];
+    }
+
+    private void addTable(int width, int length, int tall, Color color) {
+        Color legColor = color.darker();
+        double topY = tall * 0.85;
+
+        // Table top
+        addBox(0, topY, 0, width, tall, length, color);
+
+        // Table legs at the corners
+        double legWidth = width / 10.0;
+        double legLength = Math.max(2, length / 10.0);
+        addBox(legWidth / 2, 0, legLength / 2, legWidth * 1.5, topY, legLength * 1.5, legColor);
+        addBox(width - legWidth * 1.5, 0, legLength / 2, width - legWidth / 2, topY, legLength * 1.5, legColor);
+        addBox(legWidth / 2, 0, length - legLength * 1.5, legWidth * 1.5, topY, length - legLength / 2, legColor);
+        addBox(width - legWidth * 1.5, 0, length - legLength * 1.5, width - legWidth / 2, topY, length - legLength / 2, legColor);
+    }
+
+    private void addChair(int width, int length, int tall, Color color) {
+        Color darker = color.darker();
+        double seatY = tall * 0.45;
+        double seatTop = tall * 0.55;
+
+        // Seat, and the back along the far edge
+        addBox(0, seatY, 0, width, seatTop, length, color);
+        addBox(0, seatTop, 0, width, tall * 1.1, length / 6.0, darker);
+
+        // Legs
+        double leg = width / 12.0;
+        addBox(0, 0, 0, leg, seatY, leg, darker);
+        addBox(width - leg, 0, 0, width, seatY, leg, darker);
+        addBox(0, 0, length - leg, leg, seatY, length, darker);
+        addBox(width - leg, 0, length - leg, width, seatY, length, darker);
+    }
+
+    private void addSofa(int width, int length, int tall, Color color) {
+        Color darker = color.darker();
+        double arm = width / 10.0;
+
+        // Base and back
+        addBox(arm, 0, length / 3.0, width - arm, tall * 0.5, length, color);
+        addBox(0, 0, 0, width, tall, length / 3.0, darker);
+
+        // Arms
+        addBox(0, 0, length / 3.0, arm, tall * 0.7, length, darker);
+        addBox(width - arm, 0, length / 3.0, width, tall * 0.7, length, darker);
+    }
+
+    private void addBed(int width, int length, int tall, Color color) {
+        double frameTop = tall * 0.35;
+        double mattressTop = tall * 0.6;
+
+        // Bed frame/base
+        addBox(0, 0, 0, width, frameTop, length, color.darker());
+
+        // Mattress
+        addBox(width * 0.025, frameTop, length * 0.05, width * 0.975, mattressTop, length * 0.99, MATTRESS_COLOR);
+
+        // Headboard along the far edge
+        addBox(0, 0, 0, width, tall * 1.6, length * 0.05, color);
+
+        // Pillows
+        addBox(width * 0.08, mattressTop, length * 0.08, width * 0.46, tall * 0.78, length * 0.22, PILLOW_COLOR);
+        addBox(width * 0.54, mattressTop, length * 0.08, width * 0.92, tall * 0.78, length * 0.22, PILLOW_COLOR);
+
+        // Blanket
+        addBox(width * 0.02, mattressTop, length * 0.3, width * 0.98, tall * 0.66, length, BLANKET_COLOR);
+    }
+
+    private void addWardrobe(int width, int length, int tall, Color color) {
+        // Main body
+        addBox(0, 0, 0, width, tall, length, color);
+
+        // Door gap and handles on the near face
+        double handle = Math.max(2, width / 20.0);
+        addBox(width / 2.0 - 0.5, tall * 0.02, length, width / 2.0 + 0.5, tall * 0.98, length + 0.5, Color.BLACK);
+        addBox(width / 2.0 - handle * 2, tall * 0.45, length, width / 2.0 - handle, tall * 0.45 + handle, length + 1, Color.DARK_GRAY);
+        addBox(width / 2.0 + handle, tall * 0.45, length, width / 2.0 + handle * 2, tall * 0.45 + handle, length + 1, Color.DARK_GRAY);
+    }
+
+    private void addLamp(int width, int length, int tall, Color color) {
+        double cx = width / 2.0;
+        double cz = length / 2.0;
+        double base = width / 6.0;
+        double stand = Math.max(1, width / 40.0);
+
+        // Base, stand and shade
+        addBox(cx - base, 0, cz - base, cx + base, tall / 10.0, cz + base, color.darker());
+        addBox(cx - stand, tall / 10.0, cz - stand, cx + stand, tall * 0.75, cz + stand, color);
+        addBox(0, tall * 0.75, 0, width, tall, length, color.brighter());
+    }
+
+    /**
+     * Identifies a mesh by furniture type, size and unlit color
+     */
+    static final class Key {
+        private final int type;
+        private final int width, height, depth;
+        private final int rgb;
+
+        Key(FurnitureCatalog.Type type, int width, int height, int depth, int rgb) {
+            this.type = type.getOrdinal();
+            this.width = width;
+            this.height = height;
+            this.depth = depth;
+            this.rgb = rgb;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return width == other.width && height == other.height && depth == other.depth
+                && rgb == other.rgb && type == other.type;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = type;
+            result = 31 * result + width;
+            result = 31 * result + height;
+            result = 31 * result + depth;
+            return 31 * result + rgb;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ui;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Path2D;
+import java.util.function.Consumer;
+
+/**
+ * Painter's-algorithm renderer using Java2D
+ * Each layer is sorted back to front and its faces are filled and outlined
+ * in order; antialiased, but intersecting parts cannot be ordered correctly.
+ */
+class Java2DSceneRenderer implements SceneRenderer {
+    private final Path2D.Float facePath = new Path2D.Float();
+
+    @Override
+    public String getName() {
+        return "Java2D";
+    }
+
+    @Override
+    public SceneRenderer newInstance() {
+        return new Java2DSceneRenderer();
+    }
+
+    @Override
+    public void render(Graphics2D g, int width, int height, Color background, boolean antialias,
+                       Consumer<Graphics2D> floor, FaceBuffer... layers) {
+        g.setColor(background);
+        g.fillRect(0, 0, width, height);
+
+        // Anti-aliasing for smoother lines, unless the frame is a quick preview
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+            antialias ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF);
+        floor.accept(g);
+
+        for (FaceBuffer faces : layers) {
+            faces.sortBackToFront();
+            fillFaces(g, faces);
+        }
+    }
+
+    /**
+     * Fills and outlines the faces of a buffer in back-to-front order
+     */
+    private void fillFaces(Graphics2D g, FaceBuffer faces) {
+        for (int i = 0; i < faces.size(); i++) {
+            int face = faces.faceAt(i);
+            facePath.reset();
+            facePath.moveTo(faces.x(face, 0), faces.y(face, 0));
+            facePath.lineTo(faces.x(face, 1), faces.y(face, 1));
+            facePath.lineTo(faces.x(face, 2), faces.y(face, 2));
+            facePath.lineTo(faces.x(face, 3), faces.y(face, 3));
+            facePath.closePath();
+
+            g.setColor(faces.color(face));
+            g.fill(facePath);
+            g.setColor(Color.BLACK);
+            g.draw(facePath);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package ui;
+
+import java.util.Arrays;
+
+/**
+ * Bounding-volume hierarchy for picking furniture in the 3D view
+ * Every leaf holds one item and is bounded by the part boxes of its mesh
+ * in world space; a ray first descends the tree and then tests the parts of
+ * the items it reaches, so a pick touches a handful of parts even on scenes
+ * with tens of thousands of them. When items move or change size their leaf
+ * is updated and the bounds of its ancestors are refit, which keeps the tree
+ * valid without rebuilding it. All methods must be called on the Event
+ * Dispatch Thread.
+ */
+final class PartBVH {
+    // Refitting loosens the tree; past this share of changed leaves it is cheaper to rebuild
+    private static final double REBUILD_FRACTION = 0.25;
+
+    private final int items;
+    private final FurnitureMesh[] meshes;
+    // Per item: world x, y and z of the mesh origin
+    private final double[] placements;
+
+    // Per node: min x, min y, min z, max x, max y, max z
+    private final double[] nodeBounds;
+    // Per node: children, or -1 for leaves; the parent, or -1 for the root; the item of a leaf
+    private final int[] left;
+    private final int[] right;
+    private final int[] parent;
+    private final int[] nodeItem;
+    // Per item: its leaf node
+    private final int[] leafOf;
+    private int nodes = 0;
+
+    /**
+     * Builds the hierarchy over a scene's items
+     * @param meshes the mesh of each item; the array is copied
+     * @param placements per item: world x, y and z; the array is copied
+     */
+    PartBVH(FurnitureMesh[] meshes, double[] placements) {
+        this.items = meshes.length;
+        this.meshes = Arrays.copyOf(meshes, items);
+        this.placements = Arrays.copyOf(placements, items * 3);
+
+        int capacity = Math.max(1, items * 2 - 1);
+        nodeBounds = new double[capacity * 6];
+        left = new int[capacity];
+        right = new int[capacity];
+        parent = new int[capacity];
+        nodeItem = new int[capacity];
+        leafOf = new int[items];
+
+        if (items > 0) {
+            int[] order = new int[items];
+            double[] centers = new double[items * 3];
+            double[] box = new double[6];
+            for (int i = 0; i < items; i++) {
+                order[i] = i;
+                itemBounds(i, box, 0);
+                centers[i * 3] = box[0] + box[3];
+                centers[i * 3 + 1] = box[1] + box[4];
+                centers[i * 3 + 2] = box[2] + box[5];
+            }
+            build(order, centers, 0, items, -1);
+        }
+    }
+
+    /**
+     * Gets the number of items in the hierarchy
+     */
+    int size() {
+        return items;
+    }
+
+    /**
+     * Brings the hierarchy up to date with a new scene snapshot
+     * Leaves whose mesh or placement changed are refit in place; when too many
+     * changed, or items were added or removed, a new hierarchy is built instead
+     * @param meshes the mesh of each item
+     * @param placements per item: world x, y and z
+     * @return this hierarchy after refitting, or a newly built one
+     */
+    PartBVH update(FurnitureMesh[] meshes, double[] placements) {
+        if (meshes.length != items) {
+            return new PartBVH(meshes, placements);
+        }
+        int changed = 0;
+        int[] changedItems = null;
+        for (int i = 0; i < items; i++) {
+            int p = i * 3;
+            if (meshes[i] != this.meshes[i] || placements[p] != this.placements[p]
+                || placements[p + 1] != this.placements[p + 1] || placements[p + 2] != this.placements[p + 2]) {
+                if (changedItems == null) {
+                    changedItems = new int[Math.max(1, (int) (items * REBUILD_FRACTION))];
+                }
+                if (changed == changedItems.length) {
+                    return new PartBVH(meshes, placements);
+                }
+                changedItems[changed++] = i;
+            }
+        }
+        for (int k = 0; k < changed; k++) {
+            int i = changedItems[k];
+            this.meshes[i] = meshes[i];
+            System.arraycopy(placements, i * 3, this.placements, i * 3, 3);
+            refit(i);
+        }
+        return this;
+    }
+
+    /**
+     * Finds the item whose parts a ray hits first
+     * @param ray origin x, y, z and direction x, y, z, as from Camera3D.ray
+     * @return the index of the nearest item hit, or -1 if the ray misses everything
+     */
+    int pick(double[] ray) {
+        if (items == 0) return -1;
+        double ox = ray[0], oy = ray[1], oz = ray[2];
+        // Reciprocal direction for the slab tests; infinities handle axis-parallel rays
+        double ix = 1 / ray[3], iy = 1 / ray[4], iz = 1 / ray[5];
+
+        double best = Double.POSITIVE_INFINITY;
+        int hit = -1;
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            int b = node * 6;
+            if (enter(nodeBounds, b, 0, 0, 0, ox, oy, oz, ix, iy, iz) >= best) continue;
+
+            if (left[node] < 0) {
+                int item = nodeItem[node];
+                int p = item * 3;
+                float[] parts = meshes[item].bounds;
+                for (int part = 0; part < meshes[item].partCount(); part++) {
+                    double t = enter(parts, part * 6, placements[p], placements[p + 1], placements[p + 2],
+                        ox, oy, oz, ix, iy, iz);
+                    if (t < best) {
+                        best = t;
+                        hit = item;
+                    }
+                }
+            } else {
+                if (top + 2 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                // Visit the nearer child first, so more of the farther one is skipped
+                int near = left[node], far = right[node];
+                if (enter(nodeBounds, far * 6, 0, 0, 0, ox, oy, oz, ix, iy, iz)
+                    < enter(nodeBounds, near * 6, 0, 0, 0, ox, oy, oz, ix, iy, iz)) {
+                    near = right[node];
+                    far = left[node];
+                }
+                stack[top++] = far;
+                stack[top++] = near;
+            }
+        }
+        return hit;
+    }
+
+    /**
+     * Builds the subtree over order[from, to) and returns its node
+     */
+    private int build(int[] order, double[] centers, int from, int to, int up) {
+        int node = nodes++;
+        parent[node] = up;
+        if (to - from == 1) {
+            int item = order[from];
+            left[node] = -1;
+            right[node] = -1;
+            nodeItem[node] = item;
+            leafOf[item] = node;
+            itemBounds(item, nodeBounds, node * 6);
+            return node;
+        }
+
+        // Split at the median of the item centers along the widest axis
+        double[] spread = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+        for (int k = from; k < to; k++) {
+            int c = order[k] * 3;
+            for (int axis = 0; axis < 3; axis++) {
+                spread[axis] = Math.min(spread[axis], centers[c + axis]);
+                spread[axis + 3] = Math.max(spread[axis + 3], centers[c + axis]);
+            }
+        }
+        int axis = 0;
+        for (int a = 1; a < 3; a++) {
+            if (spread[a + 3] - spread[a] > spread[axis + 3] - spread[axis]) {
+                axis = a;
+            }
+        }
+        int middle = (from + to) >>> 1;
+        select(order, centers, axis, from, to - 1, middle);
+
+        nodeItem[node] = -1;
+        left[node] = build(order, centers, from, middle, node);
+        right[node] = build(order, centers, middle, to, node);
+        union(node);
+        return node;
+    }
+
+    /**
+     * Partially sorts order[lo, hi] by center along an axis, so the k-th item is in place
+     */
+    private static void select(int[] order, double[] centers, int axis, int lo, int hi, int k) {
+        while (lo < hi) {
+            double pivot = centers[order[(lo + hi) >>> 1] * 3 + axis];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (centers[order[i] * 3 + axis] < pivot) i++;
+                while (centers[order[j] * 3 + axis] > pivot) j--;
+                if (i <= j) {
+                    int swap = order[i];
+                    order[i++] = order[j];
+                    order[j--] = swap;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Recomputes an item's leaf bounds and widens or tightens its ancestors to match
+     */
+    private void refit(int item) {
+        int node = leafOf[item];
+        itemBounds(item, nodeBounds, node * 6);
+        for (node = parent[node]; node >= 0; node = parent[node]) {
+            union(node);
+        }
+    }
+
+    private void union(int node) {
+        int b = node * 6, l = left[node] * 6, r = right[node] * 6;
+        for (int k = 0; k < 3; k++) {
+            nodeBounds[b + k] = Math.min(nodeBounds[l + k], nodeBounds[r + k]);
+            nodeBounds[b + k + 3] = Math.max(nodeBounds[l + k + 3], nodeBounds[r + k + 3]);
+        }
+    }
+
+    /**
+     * Writes the world bounds of all parts of an item
+     */
+    private void itemBounds(int item, double[] out, int offset) {
+        float[] parts = meshes[item].bounds;
+        int p = item * 3;
+        Arrays.fill(out, offset, offset + 3, Double.POSITIVE_INFINITY);
+        Arrays.fill(out, offset + 3, offset + 6, Double.NEGATIVE_INFINITY);
+        for (int part = 0; part < meshes[item].partCount(); part++) {
+            for (int k = 0; k < 3; k++) {
+                out[offset + k] = Math.min(out[offset + k], parts[part * 6 + k] + placements[p + k]);
+                out[offset + k + 3] = Math.max(out[offset + k + 3], parts[part * 6 + k + 3] + placements[p + k]);
+            }
+        }
+    }
+
+    /**
+     * Intersects a ray with a box using the slab method
+     * @return the ray parameter where the ray enters the box, or positive infinity on a miss
+     */
+    private static double enter(double[] box, int b, double dx, double dy, double dz,
+                                double ox, double oy, double oz, double ix, double iy, double iz) {
+        return enter(box[b] + dx, box[b + 1] + dy, box[b + 2] + dz, box[b + 3] + dx, box[b + 4] + dy,
+            box[b + 5] + dz, ox, oy, oz, ix, iy, iz);
+    }
+
+    private static double enter(float[] box, int b, double dx, double dy, double dz,
+                                double ox, double oy, double oz, double ix, double iy, double iz) {
+        return enter(box[b] + dx, box[b + 1] + dy, box[b + 2] + dz, box[b + 3] + dx, box[b + 4] + dy,
+            box[b + 5] + dz, ox, oy, oz, ix, iy, iz);
+    }
+
+    private static double enter(double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                                double ox, double oy, double oz, double ix, double iy, double iz) {
+        double t0 = (minX - ox) * ix, t1 = (maxX - ox) * ix;
+        double near = Math.min(t0, t1), far = Math.max(t0, t1);
+        t0 = (minY - oy) * iy;
+        t1 = (maxY - oy) * iy;
+        near = Math.max(near, Math.min(t0, t1));
+        far = Math.min(far, Math.max(t0, t1));
+        t0 = (minZ - oz) * iz;
+        t1 = (maxZ - oz) * iz;
+        near = Math.max(near, Math.min(t0, t1));
+        far = Math.min(far, Math.max(t0, t1));
+        // NaN from a zero-width slab seen edge-on counts as a miss
+        return near <= far ? near : Double.POSITIVE_INFINITY;
+    }
+}
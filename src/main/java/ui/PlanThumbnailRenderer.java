@@ -0,0 +1,64 @@
+package ui;
+
+import model.Design;
+import service.ThumbnailService;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Draws the 2D floor plan of a saved design as a thumbnail
+ * Uses the room outline and item drawing of the 2D view, so thumbnails look
+ * like the plan the designer saw; labels are left out at this size.
+ * Holds no state and only touches the design, so it is safe on pool threads.
+ */
+public class PlanThumbnailRenderer implements ThumbnailService.Renderer {
+    private static final Color BACKGROUND = new Color(240, 240, 240);
+    private static final int MARGIN = 4;
+
+    // Saved items hold model coordinates, which are the 2D plan shifted by (-250, -200)
+    static final int MODEL_TO_PLAN_X = 250;
+    static final int MODEL_TO_PLAN_Y = 200;
+
+    @Override
+    public void render(Design design, Graphics2D g, int width, int height) {
+        g.setColor(BACKGROUND);
+        g.fillRect(0, 0, width, height);
+
+        Shape room = AffineTransform.getTranslateInstance(Design2DPanel.ROOM_OFFSET, Design2DPanel.ROOM_OFFSET)
+            .createTransformedShape(Design2DPanel.createRoomShape(design.getRoomShape(),
+                design.getRoomWidth(), design.getRoomLength()));
+
+        // Fit the room and every item, including any placed outside the room
+        Rectangle2D bounds = room.getBounds2D();
+        for (Design.FurnitureItem item : design.getFurnitureItems()) {
+            bounds.add(new Rectangle2D.Double(item.getX() + MODEL_TO_PLAN_X, item.getY() + MODEL_TO_PLAN_Y,
+                item.getWidth(), item.getHeight()));
+        }
+        if (bounds.isEmpty()) return;
+        double scale = Math.min((width - MARGIN * 2) / bounds.getWidth(), (height - MARGIN * 2) / bounds.getHeight());
+
+        AffineTransform original = g.getTransform();
+        g.translate(width / 2.0, height / 2.0);
+        g.scale(scale, scale);
+        g.translate(-bounds.getCenterX(), -bounds.getCenterY());
+
+        g.setColor(design.getRoomColor());
+        g.fill(room);
+        // Outlines stay one pixel wide whatever the scale
+        g.setColor(Color.BLACK);
+        g.setStroke(new BasicStroke((float) (1 / scale)));
+        g.draw(room);
+
+        for (Design.FurnitureItem item : design.getFurnitureItems()) {
+            Design2DPanel.drawItem(g, item.getX() + MODEL_TO_PLAN_X, item.getY() + MODEL_TO_PLAN_Y,
+                item.getWidth(), item.getHeight(), item.getColor(), item.getType(), false, false);
+        }
+        g.setStroke(new BasicStroke(1));
+        g.setTransform(original);
+    }
+}
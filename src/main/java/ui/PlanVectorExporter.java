@@ -0,0 +1,430 @@
+package ui;
+
+import model.DesignModel;
+import model.FurnitureItemModel;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Shape;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes the 2D floor plan as SVG or PDF, so it can be scaled and printed without loss
+ * The plan is drawn as the 2D view draws it: the room outline, each item as
+ * a filled rectangle with its name, plus the item and room dimensions in cm.
+ * The plan is captured from the model first, on the Event Dispatch Thread,
+ * and can then be written on any thread while editing continues. Output is
+ * streamed in a single pass over the captured items; nothing proportional to
+ * the output is held in memory. Strokes and fonts are defined once, as SVG
+ * style classes or as PDF graphics state.
+ */
+final class PlanVectorExporter {
+    private static final Font LABEL_FONT = new Font("SansSerif", Font.PLAIN, 12);
+    private static final Font DIMENSION_FONT = new Font("SansSerif", Font.PLAIN, 8);
+    private static final FontRenderContext FONT_CONTEXT = new FontRenderContext(null, true, true);
+    // Item names and sizes repeat across a plan, and measuring text is the slowest part of a pass
+    private static final int MAX_CACHED_WIDTHS = 1024;
+
+    // Room dimension lines run this far outside the room
+    private static final int DIMENSION_GAP = 15;
+    private static final int MARGIN = 30;
+
+    private PlanVectorExporter() {
+    }
+
+    /**
+     * Copies the room and items of a design for export
+     * Call on the Event Dispatch Thread; the copy does not change when the design does
+     * @param model the design to export
+     * @return the plan, ready to write
+     */
+    static Plan capture(DesignModel model) {
+        return new Plan(model);
+    }
+
+    /**
+     * Writes the plan as an SVG document
+     * @param plan the plan to export
+     * @param out the stream the document is written to; left open
+     * @throws IOException if the document cannot be written
+     */
+    static void writeSvg(Plan plan, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(new NonClosingStream(out), StandardCharsets.UTF_8);
+        Rectangle2D bounds = plan.bounds;
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        writer.write(String.format(Locale.ROOT,
+            "<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"%s %s %s %s\" width=\"%s\" height=\"%s\">\n",
+            number(bounds.getX()), number(bounds.getY()), number(bounds.getWidth()), number(bounds.getHeight()),
+            number(bounds.getWidth()), number(bounds.getHeight())));
+        writer.write("<style>\n"
+            + ".room { stroke: #000; stroke-width: 1; }\n"
+            + ".item { stroke: #000; stroke-width: 1; }\n"
+            + ".label { fill: #fff; font: 12px sans-serif; }\n"
+            + ".size { fill: #fff; font: 8px sans-serif; }\n"
+            + ".dimension { stroke: #555; stroke-width: 0.5; fill: none; }\n"
+            + ".dimension-text { fill: #555; font: 8px sans-serif; text-anchor: middle; }\n"
+            + "</style>\n");
+
+        writer.write("<path class=\"room\" fill=\"" + hex(plan.roomColor) + "\" d=\"" + svgPath(plan.room) + "\"/>\n");
+        writeSvgDimensions(writer, plan);
+
+        Map<String, Double> nameWidths = new HashMap<>();
+        Map<String, Double> sizeWidths = new HashMap<>();
+        writer.write("<g class=\"items\">\n");
+        for (Item item : plan.items) {
+            int x = item.x, y = item.y;
+            writer.write("<rect class=\"item\" x=\"" + x + "\" y=\"" + y + "\" width=\"" + item.width
+                + "\" height=\"" + item.height + "\" fill=\"" + hex(item.color) + "\"/>");
+            // Labels sit where the 2D view draws them, and only where they fit
+            String name = item.name;
+            double nameWidth = textWidth(nameWidths, LABEL_FONT, name);
+            if (nameWidth < item.width - 4) {
+                writer.write("<text class=\"label\" x=\"" + number(x + (item.width - nameWidth) / 2)
+                    + "\" y=\"" + (y + item.height / 2) + "\">" + escapeXml(name) + "</text>");
+            }
+            String size = size(item);
+            double sizeWidth = textWidth(sizeWidths, DIMENSION_FONT, size);
+            if (sizeWidth < item.width - 4 && item.height >= 28) {
+                writer.write("<text class=\"size\" x=\"" + number(x + (item.width - sizeWidth) / 2)
+                    + "\" y=\"" + (y + item.height / 2 + 10) + "\">" + size + "</text>");
+            }
+            writer.write('\n');
+        }
+        writer.write("</g>\n</svg>\n");
+        writer.flush();
+    }
+
+    private static void writeSvgDimensions(Writer writer, Plan plan) throws IOException {
+        Rectangle2D room = plan.room.getBounds2D();
+        double top = room.getMinY() - DIMENSION_GAP;
+        double left = room.getMinX() - DIMENSION_GAP;
+        writer.write("<path class=\"dimension\" d=\"M" + number(room.getMinX()) + " " + number(top)
+            + "H" + number(room.getMaxX())
+            + "M" + number(room.getMinX()) + " " + number(top - 4) + "v8"
+            + "M" + number(room.getMaxX()) + " " + number(top - 4) + "v8"
+            + "M" + number(left) + " " + number(room.getMinY()) + "V" + number(room.getMaxY())
+            + "M" + number(left - 4) + " " + number(room.getMinY()) + "h8"
+            + "M" + number(left - 4) + " " + number(room.getMaxY()) + "h8\"/>\n");
+        writer.write("<text class=\"dimension-text\" x=\"" + number(room.getCenterX()) + "\" y=\"" + number(top - 4)
+            + "\">" + number(room.getWidth()) + " cm</text>\n");
+        writer.write("<text class=\"dimension-text\" transform=\"translate(" + number(left - 4) + " "
+            + number(room.getCenterY()) + ") rotate(-90)\">" + number(room.getHeight()) + " cm</text>\n");
+    }
+
+    /**
+     * Writes the plan as a single-page PDF document, one point per cm
+     * The page content is deflated as it is written; its length and the
+     * object offsets are counted on the way, so nothing is buffered.
+     * @param plan the plan to export
+     * @param out the stream the document is written to; left open
+     * @throws IOException if the document cannot be written
+     */
+    static void writePdf(Plan plan, OutputStream out) throws IOException {
+        Rectangle2D bounds = plan.bounds;
+        CountingStream file = new CountingStream(new NonClosingStream(out));
+        long[] offsets = new long[7];
+
+        // The binary comment marks the file as binary for transfer tools
+        pdf(file, "%PDF-1.4\n%\u00e2\u00e3\u00cf\u00d3\n");
+        offsets[1] = file.count;
+        pdf(file, "1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n");
+        offsets[2] = file.count;
+        pdf(file, "2 0 obj\n<< /Type /Pages /Kids [3 0 R] /Count 1 >>\nendobj\n");
+        offsets[3] = file.count;
+        pdf(file, "3 0 obj\n<< /Type /Page /Parent 2 0 R /MediaBox [0 0 " + number(bounds.getWidth()) + " "
+            + number(bounds.getHeight()) + "] /Resources << /Font << /F1 5 0 R >> >> /Contents 4 0 R >>\nendobj\n");
+        offsets[5] = file.count;
+        pdf(file, "5 0 obj\n<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica /Encoding /WinAnsiEncoding >>\nendobj\n");
+
+        offsets[4] = file.count;
+        pdf(file, "4 0 obj\n<< /Length 6 0 R /Filter /FlateDecode >>\nstream\n");
+        long contentStart = file.count;
+        Deflater deflater = new Deflater();
+        try {
+            DeflaterOutputStream deflated = new DeflaterOutputStream(new NonClosingStream(file), deflater, 1 << 16);
+            Writer content = new OutputStreamWriter(deflated, StandardCharsets.ISO_8859_1);
+            writePdfContent(content, plan);
+            content.flush();
+            deflated.finish();
+        } finally {
+            deflater.end();
+        }
+        long contentLength = file.count - contentStart;
+        pdf(file, "\nendstream\nendobj\n");
+        offsets[6] = file.count;
+        pdf(file, "6 0 obj\n" + contentLength + "\nendobj\n");
+
+        long xref = file.count;
+        StringBuilder table = new StringBuilder("xref\n0 7\n0000000000 65535 f \n");
+        for (int i = 1; i < offsets.length; i++) {
+            table.append(String.format(Locale.ROOT, "%010d 00000 n \n", offsets[i]));
+        }
+        table.append("trailer\n<< /Size 7 /Root 1 0 R >>\nstartxref\n").append(xref).append("\n%%EOF\n");
+        pdf(file, table.toString());
+        file.flush();
+    }
+
+    private static void writePdfContent(Writer content, Plan plan) throws IOException {
+        Rectangle2D bounds = plan.bounds;
+        // Flip to the plan's y-down coordinates with the bounds at the page origin; text is flipped back
+        content.write("1 0 0 -1 " + number(-bounds.getX()) + " " + number(bounds.getMaxY()) + " cm\n");
+        content.write("0 0 0 RG 1 w\n");
+
+        content.write(rgb(plan.roomColor) + " rg\n");
+        content.write(pdfPath(plan.room) + "B\n");
+
+        // Room dimensions in grey, drawn before the items like on the SVG
+        Rectangle2D room = plan.room.getBounds2D();
+        double top = room.getMinY() - DIMENSION_GAP;
+        double left = room.getMinX() - DIMENSION_GAP;
+        content.write("q 0.333 0.333 0.333 RG 0.333 0.333 0.333 rg 0.5 w\n");
+        content.write(number(room.getMinX()) + " " + number(top) + " m " + number(room.getMaxX()) + " " + number(top) + " l\n");
+        content.write(number(room.getMinX()) + " " + number(top - 4) + " m " + number(room.getMinX()) + " " + number(top + 4) + " l\n");
+        content.write(number(room.getMaxX()) + " " + number(top - 4) + " m " + number(room.getMaxX()) + " " + number(top + 4) + " l\n");
+        content.write(number(left) + " " + number(room.getMinY()) + " m " + number(left) + " " + number(room.getMaxY()) + " l\n");
+        content.write(number(left - 4) + " " + number(room.getMinY()) + " m " + number(left + 4) + " " + number(room.getMinY()) + " l\n");
+        content.write(number(left - 4) + " " + number(room.getMaxY()) + " m " + number(left + 4) + " " + number(room.getMaxY()) + " l S\n");
+        String width = number(room.getWidth()) + " cm";
+        String length = number(room.getHeight()) + " cm";
+        content.write("BT /F1 8 Tf 1 0 0 -1 " + number(room.getCenterX() - textWidth(DIMENSION_FONT, width) / 2) + " "
+            + number(top - 4) + " Tm (" + width + ") Tj ET\n");
+        content.write("BT /F1 8 Tf 0 -1 -1 0 " + number(left - 4) + " "
+            + number(room.getCenterY() + textWidth(DIMENSION_FONT, length) / 2) + " Tm (" + length + ") Tj ET\n");
+        content.write("Q\n");
+
+        Map<String, Double> nameWidths = new HashMap<>();
+        Map<String, Double> sizeWidths = new HashMap<>();
+        for (Item item : plan.items) {
+            int x = item.x, y = item.y;
+            content.write(rgb(item.color) + " rg " + x + " " + y + " " + item.width + " " + item.height
+                + " re B\n");
+            String name = item.name;
+            double nameWidth = textWidth(nameWidths, LABEL_FONT, name);
+            String size = size(item);
+            double sizeWidth = textWidth(sizeWidths, DIMENSION_FONT, size);
+            boolean showName = nameWidth < item.width - 4;
+            boolean showSize = sizeWidth < item.width - 4 && item.height >= 28;
+            if (!showName && !showSize) continue;
+            content.write("1 1 1 rg BT");
+            if (showName) {
+                content.write(" /F1 12 Tf 1 0 0 -1 " + number(x + (item.width - nameWidth) / 2) + " "
+                    + (y + item.height / 2) + " Tm (" + escapePdf(name) + ") Tj");
+            }
+            if (showSize) {
+                content.write(" /F1 8 Tf 1 0 0 -1 " + number(x + (item.width - sizeWidth) / 2) + " "
+                    + (y + item.height / 2 + 10) + " Tm (" + size + ") Tj");
+            }
+            content.write(" ET\n");
+        }
+    }
+
+    private static String size(Item item) {
+        return item.width + " x " + item.height;
+    }
+
+    private static double textWidth(Font font, String text) {
+        return font.getStringBounds(text, FONT_CONTEXT).getWidth();
+    }
+
+    private static double textWidth(Map<String, Double> cache, Font font, String text) {
+        Double width = cache.get(text);
+        if (width == null) {
+            if (cache.size() == MAX_CACHED_WIDTHS) {
+                cache.clear();
+            }
+            width = textWidth(font, text);
+            cache.put(text, width);
+        }
+        return width;
+    }
+
+    private static String svgPath(Shape shape) {
+        StringBuilder path = new StringBuilder();
+        double[] coords = new double[6];
+        for (PathIterator it = shape.getPathIterator(null); !it.isDone(); it.next()) {
+            int type = it.currentSegment(coords);
+            if (type == PathIterator.SEG_MOVETO) {
+                path.append('M').append(number(coords[0])).append(' ').append(number(coords[1]));
+            } else if (type == PathIterator.SEG_LINETO) {
+                path.append('L').append(number(coords[0])).append(' ').append(number(coords[1]));
+            } else if (type == PathIterator.SEG_CLOSE) {
+                path.append('Z');
+            }
+        }
+        return path.toString();
+    }
+
+    private static String pdfPath(Shape shape) {
+        StringBuilder path = new StringBuilder();
+        double[] coords = new double[6];
+        for (PathIterator it = shape.getPathIterator(null); !it.isDone(); it.next()) {
+            int type = it.currentSegment(coords);
+            if (type == PathIterator.SEG_MOVETO) {
+                path.append(number(coords[0])).append(' ').append(number(coords[1])).append(" m ");
+            } else if (type == PathIterator.SEG_LINETO) {
+                path.append(number(coords[0])).append(' ').append(number(coords[1])).append(" l ");
+            } else if (type == PathIterator.SEG_CLOSE) {
+                path.append("h ");
+            }
+        }
+        return path.toString();
+    }
+
+    /**
+     * Formats a coordinate with at most two decimals and no trailing zeros
+     */
+    private static String number(double value) {
+        long rounded = Math.round(value * 100);
+        String sign = rounded < 0 ? "-" : "";
+        long whole = Math.abs(rounded) / 100;
+        long fraction = Math.abs(rounded) % 100;
+        if (fraction == 0) {
+            return sign + whole;
+        }
+        if (fraction % 10 == 0) {
+            return sign + whole + "." + fraction / 10;
+        }
+        return sign + whole + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+
+    private static String hex(Color color) {
+        String digits = Integer.toHexString(color.getRGB() & 0xFFFFFF);
+        return "#000000".substring(0, 7 - digits.length()) + digits;
+    }
+
+    private static String rgb(Color color) {
+        return number(color.getRed() / 255.0) + " " + number(color.getGreen() / 255.0) + " "
+            + number(color.getBlue() / 255.0);
+    }
+
+    private static String escapeXml(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static String escapePdf(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            if (c == '(' || c == ')' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20 || c > 0xFF) {
+                // Outside the standard font's encoding
+                escaped.append('?');
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static void pdf(OutputStream out, String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * A copy of the room outline and items in plan coordinates, and the bounds of everything drawn
+     */
+    static final class Plan {
+        final Shape room;
+        final Color roomColor;
+        final Item[] items;
+        final Rectangle2D bounds;
+
+        private Plan(DesignModel model) {
+            room = AffineTransform.getTranslateInstance(Design2DPanel.ROOM_OFFSET, Design2DPanel.ROOM_OFFSET)
+                .createTransformedShape(Design2DPanel.createRoomShape(model.getRoomShape(),
+                    model.getRoomWidth(), model.getRoomLength()));
+            roomColor = model.getRoomColor();
+            List<FurnitureItemModel> source = model.getFurnitureItems();
+            items = new Item[source.size()];
+
+            Rectangle2D roomBounds = room.getBounds2D();
+            double minX = roomBounds.getMinX() - DIMENSION_GAP - 12, minY = roomBounds.getMinY() - DIMENSION_GAP - 12;
+            double maxX = roomBounds.getMaxX(), maxY = roomBounds.getMaxY();
+            for (int i = 0; i < items.length; i++) {
+                Item item = new Item(source.get(i));
+                items[i] = item;
+                minX = Math.min(minX, item.x);
+                minY = Math.min(minY, item.y);
+                maxX = Math.max(maxX, item.x + item.width);
+                maxY = Math.max(maxY, item.y + item.height);
+            }
+            bounds = new Rectangle2D.Double(minX - MARGIN, minY - MARGIN,
+                maxX - minX + MARGIN * 2, maxY - minY + MARGIN * 2);
+        }
+    }
+
+    /**
+     * One item as the plan draws it
+     */
+    private static final class Item {
+        final int x, y, width, height;
+        final Color color;
+        final String name;
+
+        Item(FurnitureItemModel item) {
+            x = item.getX() + PlanThumbnailRenderer.MODEL_TO_PLAN_X;
+            y = item.getZ() + PlanThumbnailRenderer.MODEL_TO_PLAN_Y;
+            width = item.getWidth();
+            height = item.getHeight();
+            color = item.getColor();
+            name = item.getName();
+        }
+    }
+
+    /**
+     * Counts the bytes written, for the PDF cross-reference table
+     */
+    private static final class CountingStream extends FilterOutputStream {
+        long count;
+
+        CountingStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] data, int offset, int length) throws IOException {
+            out.write(data, offset, length);
+            count += length;
+        }
+    }
+
+    /**
+     * Keeps the caller's stream open when a wrapping writer or deflater is finished
+     */
+    private static final class NonClosingStream extends FilterOutputStream {
+        NonClosingStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] data, int offset, int length) throws IOException {
+            out.write(data, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
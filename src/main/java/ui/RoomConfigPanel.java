@@ -31,6 +31,7 @@ public class RoomConfigPanel extends JPanel {
         shapeCombo.setSelectedItem(model.getRoomShape());
         
         colorCombo = new JComboBox<>(new String[]{"White", "Beige", "Grey", "Blue", "Green", "Custom..."});
+        showRoomColor(model.getRoomColor());
         
         // Create sliders for lighting settings
         lightIntensitySlider = new JSlider(JSlider.HORIZONTAL, 0, 100, (int)(model.getLightIntensity() * 100));
@@ -120,6 +121,57 @@ public class RoomConfigPanel extends JPanel {
                 lightColorButton.setBackground(newColor);
             }
         });
+        
+        // Show the room of a design loaded into the model, or as restored by undo and redo
+        model.addListener(changeType -> {
+            if (changeType.equals("MODEL_REPLACED") || changeType.equals("ROOM_DIMENSIONS_CHANGED")
+                || changeType.equals("ROOM_SHAPE_CHANGED")) {
+                widthField.setText(String.valueOf(model.getRoomWidth()));
+                lengthField.setText(String.valueOf(model.getRoomLength()));
+                heightField.setText(String.valueOf(model.getRoomHeight()));
+                shapeCombo.setSelectedItem(model.getRoomShape());
+            }
+            if (changeType.equals("MODEL_REPLACED") || changeType.equals("ROOM_COLOR_CHANGED")) {
+                showRoomColor(model.getRoomColor());
+            }
+        });
+    }
+    
+    /**
+     * Selects the color scheme matching a room color, or "Custom..." for any other color
+     * @param color the room color to show
+     */
+    private void showRoomColor(Color color) {
+        for (int i = 0; i < colorCombo.getItemCount(); i++) {
+            Color scheme = schemeColor(colorCombo.getItemAt(i));
+            if (scheme != null && scheme.getRGB() == color.getRGB()) {
+                colorCombo.setSelectedIndex(i);
+                return;
+            }
+        }
+        colorCombo.setSelectedItem("Custom...");
+    }
+    
+    /**
+     * Gets the color of a named color scheme
+     * @param colorName the scheme name
+     * @return the scheme color, or null for "Custom..."
+     */
+    private static Color schemeColor(String colorName) {
+        switch (colorName) {
+            case "White":
+                return Color.WHITE;
+            case "Beige":
+                return new Color(245, 245, 220);
+            case "Grey":
+                return Color.LIGHT_GRAY;
+            case "Blue":
+                return new Color(173, 216, 230);
+            case "Green":
+                return new Color(144, 238, 144);
+            default:
+                return null;
+        }
     }
     
     /**
@@ -131,42 +183,23 @@ public class RoomConfigPanel extends JPanel {
             int width = Integer.parseInt(widthField.getText());
             int length = Integer.parseInt(lengthField.getText());
             int height = Integer.parseInt(heightField.getText());
-            
-            // Update model with new dimensions
-            model.setRoomDimensions(width, length, height);
-            
-            // Update model with new room shape
             String shape = (String) shapeCombo.getSelectedItem();
-            model.setRoomShape(shape);
             
-            // Update model with new color
-            Color color = Color.WHITE; // Default
+            // Pick the new color; the combo always shows the room's current scheme,
+            // so the color only changes when the user picked another one
+            Color color = model.getRoomColor();
             String colorName = (String) colorCombo.getSelectedItem();
-            if ("Custom...".equals(colorName)) {
+            Color scheme = schemeColor(colorName);
+            if (scheme != null) {
+                color = scheme;
+            } else {
                 Color customColor = JColorChooser.showDialog(this, "Choose Room Color", model.getRoomColor());
                 if (customColor != null) {
                     color = customColor;
                 }
-            } else {
-                switch (colorName) {
-                    case "White":
-                        color = Color.WHITE;
-                        break;
-                    case "Beige":
-                        color = new Color(245, 245, 220);
-                        break;
-                    case "Grey":
-                        color = Color.LIGHT_GRAY;
-                        break;
-                    case "Blue":
-                        color = new Color(173, 216, 230);
-                        break;
-                    case "Green":
-                        color = new Color(144, 238, 144);
-                        break;
-                }
             }
-            model.setRoomColor(color);
+            // Update the model in one step, so a single undo reverts the whole change
+            model.setRoom(width, length, height, shape, color);
             
             // Show confirmation
             JOptionPane.showMessageDialog(this, "Room configuration updated", "Success", JOptionPane.INFORMATION_MESSAGE);
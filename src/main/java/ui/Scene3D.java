@@ -0,0 +1,143 @@
+package ui;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of everything the 3D view draws
+ * Built on the Event Dispatch Thread whenever the model changes and read
+ * by the render thread, so frames never touch the live model or items.
+ * Colors are already lit and meshes are shared and never modified.
+ */
+final class Scene3D {
+    private final Shape floorShape;
+    private final double[] floorOutline;
+    private final Color floorColor;
+    private final int roomHeight;
+
+    // Per wall: its corners, its inward x/z normal and its lit color
+    private double[][] wallQuads;
+    private final double[] wallNormals;
+    private Color[] wallColors;
+    private final ShadowLayer shadows;
+
+    private final FurnitureMesh[] meshes;
+    // Per item: world x, y and z of the mesh origin
+    private final double[] placements;
+
+    /**
+     * Creates a snapshot
+     * @param floorShape the floor in world x/z; must not be modified afterwards
+     * @param floorOutline the floor corners as x/z pairs
+     * @param floorColor the lit floor color
+     * @param wallColor the lit color of walls facing along z
+     * @param sideWallColor the lit color of walls facing along x
+     * @param roomHeight the wall height
+     * @param shadows the floor shadows, or null when shadows are off
+     * @param meshes the mesh of each item
+     * @param placements per item: world x, y and z
+     */
+    Scene3D(Shape floorShape, double[] floorOutline, Color floorColor, Color wallColor, Color sideWallColor,
+            int roomHeight, ShadowLayer shadows, FurnitureMesh[] meshes, double[] placements) {
+        this.floorShape = floorShape;
+        this.floorOutline = floorOutline;
+        this.floorColor = floorColor;
+        this.roomHeight = roomHeight;
+        this.shadows = shadows;
+        this.meshes = meshes;
+        this.placements = placements;
+
+        int points = floorOutline.length / 2;
+        wallQuads = new double[points][];
+        wallNormals = new double[points * 2];
+        wallColors = new Color[points];
+        buildWalls(wallColor, sideWallColor);
+    }
+
+    /**
+     * Draws the floor and its shadows, which lie behind everything else
+     * @param g2d graphics context in screen pixels
+     * @param camera the camera of the frame
+     * @param smooth whether the shadows are filtered; previews skip it
+     */
+    void drawFloor(Graphics2D g2d, Camera3D camera, boolean smooth) {
+        // Draw floor based on room shape, through the floor plane transform
+        AffineTransform originalTransform = g2d.getTransform();
+        g2d.transform(camera.floorTransform());
+        g2d.setColor(floorColor);
+        g2d.fill(floorShape);
+        g2d.setColor(Color.BLACK);
+        g2d.setStroke(new BasicStroke((float) (1 / camera.zoom)));
+        g2d.draw(floorShape);
+        g2d.setStroke(new BasicStroke(1));
+        g2d.setTransform(originalTransform);
+
+        // The shadow layer is cached, so it costs one image draw even while the camera moves
+        if (shadows != null) {
+            Shape originalClip = g2d.getClip();
+            g2d.transform(camera.floorTransform());
+            g2d.clip(floorShape);
+            g2d.setTransform(originalTransform);
+            shadows.draw(g2d, camera, smooth);
+            g2d.setClip(originalClip);
+        }
+    }
+
+    /**
+     * Projects the walls; walls between the camera and the room face away and are culled
+     * @param faces the buffer the wall faces are added to
+     * @param camera the camera of the frame
+     */
+    void collectWalls(FaceBuffer faces, Camera3D camera) {
+        for (int i = 0; i < wallColors.length; i++) {
+            faces.addQuad(wallQuads[i], wallNormals[i * 2], 0, wallNormals[i * 2 + 1], camera, wallColors[i]);
+        }
+    }
+
+    /**
+     * Projects the front faces of every furniture part
+     * @param faces the buffer the furniture faces are added to
+     * @param camera the camera of the frame
+     */
+    void collectFurniture(FaceBuffer faces, Camera3D camera) {
+        for (int i = 0; i < meshes.length; i++) {
+            int p = i * 3;
+            faces.addMesh(meshes[i], camera, placements[p], placements[p + 1], placements[p + 2]);
+        }
+    }
+
+    /**
+     * Builds the walls, which run along the floor outline, once per snapshot
+     */
+    private void buildWalls(Color wallColor, Color sideWallColor) {
+        int points = floorOutline.length / 2;
+        int walls = 0;
+        for (int i = 0; i < points; i++) {
+            double x0 = floorOutline[i * 2], z0 = floorOutline[i * 2 + 1];
+            double x1 = floorOutline[(i + 1) % points * 2], z1 = floorOutline[(i + 1) % points * 2 + 1];
+
+            // Inward normal of the edge
+            double nx = -(z1 - z0), nz = x1 - x0;
+            double length = Math.hypot(nx, nz);
+            if (length == 0) continue;
+            nx /= length;
+            nz /= length;
+            if (!floorShape.contains((x0 + x1) / 2 + nx, (z0 + z1) / 2 + nz)) {
+                nx = -nx;
+                nz = -nz;
+            }
+
+            wallQuads[walls] = new double[] { x0, 0, z0, x1, 0, z1, x1, roomHeight, z1, x0, roomHeight, z0 };
+            wallNormals[walls * 2] = nx;
+            wallNormals[walls * 2 + 1] = nz;
+            wallColors[walls] = Math.abs(nz) >= Math.abs(nx) ? wallColor : sideWallColor;
+            walls++;
+        }
+        wallQuads = Arrays.copyOf(wallQuads, walls);
+        wallColors = Arrays.copyOf(wallColors, walls);
+    }
+}
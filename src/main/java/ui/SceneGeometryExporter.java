@@ -0,0 +1,606 @@
+package ui;
+
+import model.FurnitureCatalog;
+
+import java.awt.Color;
+import java.awt.Shape;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the 3D scene as geometry for other tools, as binary glTF or OBJ
+ * Furniture gets the same part boxes the 3D view draws, turned into indexed
+ * triangle meshes with one primitive per visible part. The geometry depends
+ * only on the furniture type and size, so a glTF file holds the vertex and
+ * index data of each type and size once; every color of it is a small mesh
+ * that points at the same accessors with other materials, and the items are
+ * nodes that only carry a translation. The binary chunk therefore grows with
+ * the distinct types and sizes, not with the items, but each item still adds
+ * a node, and each color of a type and size a mesh, to the JSON chunk. Items
+ * of one type at different sizes do not share geometry, since parts such as
+ * table legs do not scale with the item. OBJ has no instancing, so its items
+ * are written out one after another, but normals and materials are still
+ * shared. Both formats are streamed to the file; only the distinct geometry
+ * is kept in memory. Units are meters, with y up.
+ */
+final class SceneGeometryExporter {
+    private static final double CM_TO_METERS = 0.01;
+
+    private static final int FLOOR_MATERIAL = 0;
+    private static final int WALL_MATERIAL = 1;
+
+    private static final int GLB_MAGIC = 0x46546C67;
+    private static final int GLB_JSON = 0x4E4F534A;
+    private static final int GLB_BIN = 0x004E4942;
+    private static final int GL_FLOAT = 5126;
+    private static final int GL_UNSIGNED_INT = 5125;
+    private static final int GL_ARRAY_BUFFER = 34962;
+    private static final int GL_ELEMENT_ARRAY_BUFFER = 34963;
+
+    private static final int[] ROOM_MATERIALS = { FLOOR_MATERIAL, WALL_MATERIAL };
+
+    private final List<Primitive> room = new ArrayList<>();
+
+    // Distinct furniture geometry by type and size, and its color variants by type, size and color
+    private final Map<FurnitureMesh.Key, Integer> geometryIndex = new HashMap<>();
+    private final List<Geometry> geometries = new ArrayList<>();
+    private final Map<FurnitureMesh.Key, Integer> variantIndex = new HashMap<>();
+    private final List<Variant> variants = new ArrayList<>();
+
+    // Unlit colors, in the order they were first used; the floor and walls come first
+    private final Map<Integer, Integer> materialIndex = new LinkedHashMap<>();
+    private final List<Color> materials = new ArrayList<>();
+
+    // Per item: the index of its variant, and its world x, y and z
+    private int[] instanceMeshes = new int[64];
+    private double[] instanceOffsets = new double[64 * 3];
+    private int instances = 0;
+
+    /**
+     * Starts an export with the room
+     * @param floorShape the floor in world x/z
+     * @param floorOutline the floor corners as x/z pairs
+     * @param roomHeight the wall height
+     * @param floorColor the unlit floor color
+     * @param wallColor the unlit wall color
+     */
+    SceneGeometryExporter(Shape floorShape, double[] floorOutline, int roomHeight, Color floorColor, Color wallColor) {
+        materials.add(floorColor);
+        materials.add(wallColor);
+        room.add(buildFloor(floorOutline));
+        room.add(buildWalls(floorShape, floorOutline, roomHeight));
+    }
+
+    /**
+     * Adds a furniture item
+     * @param type the furniture type name
+     * @param width the item size along x
+     * @param height the item size along z
+     * @param depth the item's vertical size
+     * @param color the unlit item color
+     * @param x the world x of the item origin
+     * @param y the world y of the item origin
+     * @param z the world z of the item origin
+     */
+    void addItem(String type, int width, int height, int depth, Color color, double x, double y, double z) {
+        FurnitureCatalog.Type catalogType = FurnitureCatalog.get(type);
+        FurnitureMesh.Key key = new FurnitureMesh.Key(catalogType, width, height, depth, color.getRGB());
+        Integer mesh = variantIndex.get(key);
+        if (mesh == null) {
+            FurnitureMesh parts = FurnitureMesh.build(catalogType, width, height, depth, color, color);
+            // The part boxes are the same for every color, so the color is left out of the geometry key
+            FurnitureMesh.Key shape = new FurnitureMesh.Key(catalogType, width, height, depth, 0);
+            Integer geometry = geometryIndex.get(shape);
+            if (geometry == null) {
+                geometry = geometries.size();
+                geometryIndex.put(shape, geometry);
+                geometries.add(buildGeometry(parts));
+            }
+            int[] partOf = geometries.get(geometry).parts;
+            int[] partMaterials = new int[partOf.length];
+            for (int i = 0; i < partOf.length; i++) {
+                partMaterials[i] = material(parts.partColors[partOf[i]]);
+            }
+            mesh = variants.size();
+            variantIndex.put(key, mesh);
+            variants.add(new Variant(type, geometry, partMaterials));
+        }
+
+        if (instances == instanceMeshes.length) {
+            instanceMeshes = Arrays.copyOf(instanceMeshes, instances * 2);
+            instanceOffsets = Arrays.copyOf(instanceOffsets, instances * 6);
+        }
+        instanceMeshes[instances] = mesh;
+        instanceOffsets[instances * 3] = x;
+        instanceOffsets[instances * 3 + 1] = y;
+        instanceOffsets[instances * 3 + 2] = z;
+        instances++;
+    }
+
+    /**
+     * Writes the scene as a binary glTF 2.0 file
+     * The JSON chunk is streamed with the item nodes, and its length is
+     * patched into the header once it is known
+     * @param file the .glb file to write
+     * @throws IOException if the file cannot be written
+     */
+    void writeGlb(File file) throws IOException {
+        // Lay out the binary chunk: positions, normals and indices of every primitive, in order;
+        // each geometry's primitives start at the accessor recorded here
+        List<Primitive> primitives = new ArrayList<>(room);
+        int[] firstAccessors = new int[geometries.size()];
+        for (int i = 0; i < geometries.size(); i++) {
+            firstAccessors[i] = primitives.size() * 3;
+            primitives.addAll(geometries.get(i).primitives);
+        }
+        long binaryLength = 0;
+        for (Primitive primitive : primitives) {
+            binaryLength += primitive.vertexCount * 24L + primitive.indexCount * 4L;
+        }
+
+        try (RandomAccessFile output = new RandomAccessFile(file, "rw")) {
+            output.setLength(0);
+            OutputStream stream = new BufferedOutputStream(Channels.newOutputStream(output.getChannel()), 1 << 16);
+            Writer json = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+            // Header and JSON chunk header, patched below
+            stream.write(new byte[20]);
+
+            json.write("{\"asset\":{\"version\":\"2.0\",\"generator\":\"Furniture Designer\"},\"scene\":0,");
+            json.write("\"scenes\":[{\"nodes\":[0]}],\"nodes\":[{\"name\":\"Design\",\"scale\":["
+                + decimal(CM_TO_METERS) + "," + decimal(CM_TO_METERS) + "," + decimal(CM_TO_METERS) + "],\"children\":[");
+            for (int node = 1; node <= instances + 1; node++) {
+                json.write(node > 1 ? "," + node : "1");
+            }
+            json.write("]},{\"name\":\"Room\",\"mesh\":0}");
+            for (int i = 0; i < instances; i++) {
+                int p = i * 3;
+                json.write(",{\"name\":" + quote(variants.get(instanceMeshes[i]).name) + ",\"mesh\":"
+                    + (instanceMeshes[i] + 1) + ",\"translation\":[" + decimal(instanceOffsets[p]) + ","
+                    + decimal(instanceOffsets[p + 1]) + "," + decimal(instanceOffsets[p + 2]) + "]}");
+            }
+
+            json.write("],\"meshes\":[");
+            writeGlbMesh(json, "Room", 0, ROOM_MATERIALS);
+            for (Variant variant : variants) {
+                json.write(",");
+                writeGlbMesh(json, variant.name, firstAccessors[variant.geometry], variant.materials);
+            }
+
+            json.write("],\"materials\":[");
+            for (int i = 0; i < materials.size(); i++) {
+                Color color = materials.get(i);
+                json.write((i > 0 ? "," : "") + "{\"pbrMetallicRoughness\":{\"baseColorFactor\":["
+                    + decimal(linear(color.getRed())) + "," + decimal(linear(color.getGreen())) + ","
+                    + decimal(linear(color.getBlue()))
+                    + ",1],\"metallicFactor\":0,\"roughnessFactor\":0.8}"
+                    // Walls are seen from inside and outside
+                    + (i == WALL_MATERIAL ? ",\"doubleSided\":true}" : "}"));
+            }
+
+            // Three accessors and buffer views per primitive: positions, normals and indices
+            json.write("],\"accessors\":[");
+            for (int i = 0; i < primitives.size(); i++) {
+                Primitive primitive = primitives.get(i);
+                float[] bounds = primitive.bounds();
+                json.write((i > 0 ? "," : "") + "{\"bufferView\":" + i * 3 + ",\"componentType\":" + GL_FLOAT
+                    + ",\"count\":" + primitive.vertexCount + ",\"type\":\"VEC3\",\"min\":[" + decimal(bounds[0])
+                    + "," + decimal(bounds[1]) + "," + decimal(bounds[2]) + "],\"max\":[" + decimal(bounds[3]) + ","
+                    + decimal(bounds[4]) + "," + decimal(bounds[5]) + "]}");
+                json.write(",{\"bufferView\":" + (i * 3 + 1) + ",\"componentType\":" + GL_FLOAT
+                    + ",\"count\":" + primitive.vertexCount + ",\"type\":\"VEC3\"}");
+                json.write(",{\"bufferView\":" + (i * 3 + 2) + ",\"componentType\":" + GL_UNSIGNED_INT
+                    + ",\"count\":" + primitive.indexCount + ",\"type\":\"SCALAR\"}");
+            }
+            json.write("],\"bufferViews\":[");
+            long offset = 0;
+            for (int i = 0; i < primitives.size(); i++) {
+                Primitive primitive = primitives.get(i);
+                long vectors = primitive.vertexCount * 12L;
+                json.write((i > 0 ? "," : "") + bufferView(offset, vectors, GL_ARRAY_BUFFER)
+                    + "," + bufferView(offset + vectors, vectors, GL_ARRAY_BUFFER)
+                    + "," + bufferView(offset + vectors * 2, primitive.indexCount * 4L, GL_ELEMENT_ARRAY_BUFFER));
+                offset += vectors * 2 + primitive.indexCount * 4L;
+            }
+            json.write("],\"buffers\":[{\"byteLength\":" + binaryLength + "}]}");
+            json.flush();
+
+            // Chunks are padded to four bytes; JSON with spaces
+            long jsonLength = output.getFilePointer() - 20;
+            int padding = (int) ((4 - jsonLength % 4) % 4);
+            for (int i = 0; i < padding; i++) {
+                stream.write(' ');
+            }
+            jsonLength += padding;
+
+            ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt((int) binaryLength).putInt(GLB_BIN);
+            stream.write(header.array());
+            for (Primitive primitive : primitives) {
+                ByteBuffer data = ByteBuffer.allocate(primitive.vertexCount * 24 + primitive.indexCount * 4)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+                data.asFloatBuffer().put(primitive.positions, 0, primitive.vertexCount * 3);
+                data.position(primitive.vertexCount * 12);
+                data.asFloatBuffer().put(primitive.normals, 0, primitive.vertexCount * 3);
+                data.position(primitive.vertexCount * 24);
+                data.asIntBuffer().put(primitive.indices, 0, primitive.indexCount);
+                stream.write(data.array());
+            }
+            stream.flush();
+
+            ByteBuffer start = ByteBuffer.allocate(20).order(ByteOrder.LITTLE_ENDIAN);
+            start.putInt(GLB_MAGIC).putInt(2).putInt((int) output.getFilePointer())
+                .putInt((int) jsonLength).putInt(GLB_JSON);
+            output.seek(0);
+            output.write(start.array());
+        }
+    }
+
+    private static String bufferView(long offset, long length, int target) {
+        return "{\"buffer\":0,\"byteOffset\":" + offset + ",\"byteLength\":" + length + ",\"target\":" + target + "}";
+    }
+
+    /**
+     * Writes the scene as a Wavefront OBJ file, with its materials in an MTL file next to it
+     * @param file the .obj file to write
+     * @throws IOException if either file cannot be written
+     */
+    void writeObj(File file) throws IOException {
+        String name = file.getName().replaceAll("\\.obj$", "");
+        File library = new File(file.getAbsoluteFile().getParentFile(), name + ".mtl");
+        try (Writer mtl = Files.newBufferedWriter(library.toPath(), StandardCharsets.UTF_8)) {
+            for (int i = 0; i < materials.size(); i++) {
+                Color color = materials.get(i);
+                mtl.write("newmtl m" + i + "\nKd " + decimal(color.getRed() / 255.0) + " "
+                    + decimal(color.getGreen() / 255.0) + " " + decimal(color.getBlue() / 255.0) + "\nd 1\n");
+            }
+        }
+
+        // Normals repeat across faces and items, so each distinct one is written once;
+        // keyed by their text, which also merges 0 and -0
+        Map<String, Integer> normalIndex = new LinkedHashMap<>();
+        Map<Primitive, int[]> vertexNormals = new HashMap<>();
+        List<Primitive> all = new ArrayList<>(room);
+        for (Geometry geometry : geometries) {
+            all.addAll(geometry.primitives);
+        }
+        for (Primitive primitive : all) {
+            int[] normals = new int[primitive.vertexCount];
+            for (int v = 0; v < primitive.vertexCount; v++) {
+                String normal = decimal(primitive.normals[v * 3]) + " " + decimal(primitive.normals[v * 3 + 1]) + " "
+                    + decimal(primitive.normals[v * 3 + 2]);
+                normals[v] = normalIndex.computeIfAbsent(normal, unused -> normalIndex.size() + 1);
+            }
+            vertexNormals.put(primitive, normals);
+        }
+
+        try (Writer obj = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            obj.write("# Furniture Designer scene, in meters\nmtllib " + library.getName() + "\n");
+            for (String normal : normalIndex.keySet()) {
+                obj.write("vn " + normal + "\n");
+            }
+            int vertex = 1;
+            obj.write("o Room\n");
+            vertex = writeObjPrimitives(obj, room, ROOM_MATERIALS, vertexNormals, 0, 0, 0, vertex);
+            for (int i = 0; i < instances; i++) {
+                int p = i * 3;
+                Variant variant = variants.get(instanceMeshes[i]);
+                obj.write("o " + variant.name.replace(' ', '_') + "_" + (i + 1) + "\n");
+                vertex = writeObjPrimitives(obj, geometries.get(variant.geometry).primitives, variant.materials,
+                    vertexNormals, instanceOffsets[p], instanceOffsets[p + 1], instanceOffsets[p + 2], vertex);
+            }
+        }
+    }
+
+    private static int writeObjPrimitives(Writer obj, List<Primitive> primitives, int[] materials,
+                                          Map<Primitive, int[]> vertexNormals,
+                                          double x, double y, double z, int vertex) throws IOException {
+        for (int m = 0; m < primitives.size(); m++) {
+            Primitive primitive = primitives.get(m);
+            obj.write("usemtl m" + materials[m] + "\n");
+            for (int v = 0; v < primitive.vertexCount; v++) {
+                int p = v * 3;
+                obj.write("v " + decimal((x + primitive.positions[p]) * CM_TO_METERS) + " "
+                    + decimal((y + primitive.positions[p + 1]) * CM_TO_METERS) + " "
+                    + decimal((z + primitive.positions[p + 2]) * CM_TO_METERS) + "\n");
+            }
+            int[] normals = vertexNormals.get(primitive);
+            for (int i = 0; i < primitive.indexCount; i += 3) {
+                obj.write("f");
+                for (int k = 0; k < 3; k++) {
+                    int index = primitive.indices[i + k];
+                    obj.write(" " + (vertex + index) + "//" + normals[index]);
+                }
+                obj.write("\n");
+            }
+            vertex += primitive.vertexCount;
+        }
+        return vertex;
+    }
+
+    /**
+     * Writes a mesh whose primitives use consecutive accessor triples, one material each
+     */
+    private static void writeGlbMesh(Writer json, String name, int accessor, int[] materials) throws IOException {
+        json.write("{\"name\":" + quote(name) + ",\"primitives\":[");
+        for (int i = 0; i < materials.length; i++) {
+            json.write((i > 0 ? "," : "") + "{\"attributes\":{\"POSITION\":" + accessor + ",\"NORMAL\":"
+                + (accessor + 1) + "},\"indices\":" + (accessor + 2) + ",\"material\":" + materials[i] + "}");
+            accessor += 3;
+        }
+        json.write("]}");
+    }
+
+    /**
+     * Turns the visible faces of a mesh into one primitive per part
+     * Parts are kept apart rather than merged by color, since two parts of one
+     * color in one variant may differ in another that shares the geometry.
+     */
+    private static Geometry buildGeometry(FurnitureMesh mesh) {
+        List<Primitive> primitives = new ArrayList<>(mesh.partCount());
+        int[] parts = new int[mesh.partCount()];
+        float[] corner = new float[12];
+        for (int part = 0; part < mesh.partCount(); part++) {
+            Primitive primitive = new Primitive();
+            int b = part * 6;
+            for (int face = 0; face < 6; face++) {
+                if (mesh.faceColors[b + face] == null) continue;
+                int axis = face / 2;
+                boolean max = face % 2 == 1;
+                int a1 = (axis + 1) % 3, a2 = (axis + 2) % 3;
+                float plane = mesh.bounds[b + axis + (max ? 3 : 0)];
+
+                // Corners counter-clockwise seen from outside: along a1 then a2 for the max face, reversed for min
+                float[] u = { mesh.bounds[b + a1], mesh.bounds[b + a1 + 3], mesh.bounds[b + a1 + 3], mesh.bounds[b + a1] };
+                float[] v = { mesh.bounds[b + a2], mesh.bounds[b + a2], mesh.bounds[b + a2 + 3], mesh.bounds[b + a2 + 3] };
+                for (int c = 0; c < 4; c++) {
+                    int k = max ? c : 3 - c;
+                    corner[c * 3 + axis] = plane;
+                    corner[c * 3 + a1] = u[k];
+                    corner[c * 3 + a2] = v[k];
+                }
+                float[] normal = new float[3];
+                normal[axis] = max ? 1 : -1;
+                primitive.addQuad(corner, normal);
+            }
+            // Parts whose faces are all hidden would leave empty primitives, which glTF does not allow
+            if (primitive.vertexCount > 0) {
+                parts[primitives.size()] = part;
+                primitives.add(primitive);
+            }
+        }
+        return new Geometry(primitives, Arrays.copyOf(parts, primitives.size()));
+    }
+
+    private int material(Color color) {
+        return materialIndex.computeIfAbsent(color.getRGB(), unused -> {
+            materials.add(color);
+            return materials.size() - 1;
+        });
+    }
+
+    /**
+     * Triangulates the floor outline by ear clipping; outlines are small, so the quadratic search is fine
+     */
+    private static Primitive buildFloor(double[] outline) {
+        Primitive floor = new Primitive();
+        int count = outline.length / 2;
+        List<Integer> remaining = new ArrayList<>();
+        double area = 0;
+        for (int i = 0; i < count; i++) {
+            remaining.add(i);
+            int j = (i + 1) % count;
+            area += outline[i * 2] * outline[j * 2 + 1] - outline[j * 2] * outline[i * 2 + 1];
+        }
+        float[] up = { 0, 1, 0 };
+        while (remaining.size() >= 3) {
+            boolean clipped = false;
+            for (int i = 0; i < remaining.size() && !clipped; i++) {
+                int a = remaining.get((i + remaining.size() - 1) % remaining.size());
+                int b = remaining.get(i);
+                int c = remaining.get((i + 1) % remaining.size());
+                double turn = cross(outline, a, b, c);
+                if (turn * area <= 0) continue;
+                boolean empty = true;
+                for (int p : remaining) {
+                    if (p != a && p != b && p != c && inside(outline, p, a, b, c)) {
+                        empty = false;
+                        break;
+                    }
+                }
+                if (!empty) continue;
+                // Seen from above (+y) with x right, counter-clockwise means a negative x/z cross product
+                int[] order = turn < 0 ? new int[] { a, b, c } : new int[] { a, c, b };
+                float[] corners = new float[9];
+                for (int k = 0; k < 3; k++) {
+                    corners[k * 3] = (float) outline[order[k] * 2];
+                    corners[k * 3 + 2] = (float) outline[order[k] * 2 + 1];
+                }
+                floor.addTriangle(corners, up);
+                remaining.remove(i);
+                clipped = true;
+            }
+            if (!clipped) break; // degenerate outline
+        }
+        return floor;
+    }
+
+    private static double cross(double[] outline, int a, int b, int c) {
+        return (outline[b * 2] - outline[a * 2]) * (outline[c * 2 + 1] - outline[a * 2 + 1])
+            - (outline[b * 2 + 1] - outline[a * 2 + 1]) * (outline[c * 2] - outline[a * 2]);
+    }
+
+    private static boolean inside(double[] outline, int p, int a, int b, int c) {
+        double d1 = cross(outline, a, b, p), d2 = cross(outline, b, c, p), d3 = cross(outline, c, a, p);
+        boolean negative = d1 < 0 || d2 < 0 || d3 < 0;
+        boolean positive = d1 > 0 || d2 > 0 || d3 > 0;
+        return !(negative && positive);
+    }
+
+    /**
+     * Builds the walls along the floor outline, facing into the room as in the 3D view
+     */
+    private static Primitive buildWalls(Shape floorShape, double[] outline, int roomHeight) {
+        Primitive walls = new Primitive();
+        int count = outline.length / 2;
+        for (int i = 0; i < count; i++) {
+            float x0 = (float) outline[i * 2], z0 = (float) outline[i * 2 + 1];
+            float x1 = (float) outline[(i + 1) % count * 2], z1 = (float) outline[(i + 1) % count * 2 + 1];
+            double nx = -(z1 - z0), nz = x1 - x0;
+            double length = Math.hypot(nx, nz);
+            if (length == 0) continue;
+            nx /= length;
+            nz /= length;
+            if (!floorShape.contains((x0 + x1) / 2 + nx, (z0 + z1) / 2 + nz)) {
+                nx = -nx;
+                nz = -nz;
+            }
+            // The quad runs along the edge and then up; it is walked backwards if that faces away from the normal
+            float[] corners = { x0, 0, z0, x1, 0, z1, x1, roomHeight, z1, x0, roomHeight, z0 };
+            boolean facing = (z1 - z0) * nx - (x1 - x0) * nz < 0;
+            if (!facing) {
+                corners = new float[] { x1, 0, z1, x0, 0, z0, x0, roomHeight, z0, x1, roomHeight, z1 };
+            }
+            walls.addQuad(corners, new float[] { (float) nx, 0, (float) nz });
+        }
+        return walls;
+    }
+
+    /**
+     * Formats a number with at most four decimals, never in exponent notation
+     */
+    private static String decimal(double value) {
+        long rounded = Math.round(value * 10000);
+        String sign = rounded < 0 ? "-" : "";
+        long whole = Math.abs(rounded) / 10000;
+        long fraction = Math.abs(rounded) % 10000;
+        if (fraction == 0) {
+            return sign + whole;
+        }
+        String digits = String.valueOf(10000 + fraction).substring(1).replaceAll("0+$", "");
+        return sign + whole + "." + digits;
+    }
+
+    private static String quote(String text) {
+        StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+        for (char c : text.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * Converts an sRGB channel to the linear value glTF colors are given in
+     */
+    private static float linear(int channel) {
+        double c = channel / 255.0;
+        return (float) (c <= 0.04045 ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4));
+    }
+
+    /**
+     * The primitives of one furniture type at one size, and the part each one was built from
+     */
+    private static final class Geometry {
+        final List<Primitive> primitives;
+        final int[] parts;
+
+        Geometry(List<Primitive> primitives, int[] parts) {
+            this.primitives = primitives;
+            this.parts = parts;
+        }
+    }
+
+    /**
+     * One color of a geometry: its name and the material of each of its primitives
+     */
+    private static final class Variant {
+        final String name;
+        final int geometry;
+        final int[] materials;
+
+        Variant(String name, int geometry, int[] materials) {
+            this.name = name;
+            this.geometry = geometry;
+            this.materials = materials;
+        }
+    }
+
+    /**
+     * Triangles of one material with flat per-vertex normals
+     */
+    private static final class Primitive {
+        float[] positions = new float[4 * 3 * 8];
+        float[] normals = new float[4 * 3 * 8];
+        int[] indices = new int[6 * 8];
+        int vertexCount = 0;
+        int indexCount = 0;
+
+        void addQuad(float[] corners, float[] normal) {
+            int base = vertexCount;
+            addVertices(corners, 4, normal);
+            addIndices(base, base + 1, base + 2, base, base + 2, base + 3);
+        }
+
+        void addTriangle(float[] corners, float[] normal) {
+            int base = vertexCount;
+            addVertices(corners, 3, normal);
+            addIndices(base, base + 1, base + 2);
+        }
+
+        private void addVertices(float[] corners, int count, float[] normal) {
+            if ((vertexCount + count) * 3 > positions.length) {
+                positions = Arrays.copyOf(positions, positions.length * 2);
+                normals = Arrays.copyOf(normals, normals.length * 2);
+            }
+            for (int i = 0; i < count; i++) {
+                int p = (vertexCount + i) * 3;
+                System.arraycopy(corners, i * 3, positions, p, 3);
+                System.arraycopy(normal, 0, normals, p, 3);
+            }
+            vertexCount += count;
+        }
+
+        private void addIndices(int... vertices) {
+            if (indexCount + vertices.length > indices.length) {
+                indices = Arrays.copyOf(indices, indices.length * 2);
+            }
+            System.arraycopy(vertices, 0, indices, indexCount, vertices.length);
+            indexCount += vertices.length;
+        }
+
+        /**
+         * Gets the minimum and maximum x, y and z of the positions
+         */
+        float[] bounds() {
+            float[] bounds = { Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE,
+                -Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE };
+            for (int i = 0; i < vertexCount * 3; i++) {
+                bounds[i % 3] = Math.min(bounds[i % 3], positions[i]);
+                bounds[i % 3 + 3] = Math.max(bounds[i % 3 + 3], positions[i]);
+            }
+            return bounds;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package ui;
+
+import javax.swing.SwingUtilities;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Renders 3D frames on a dedicated background thread
+ * The Event Dispatch Thread posts requests holding immutable scene and
+ * camera snapshots; only the newest request is kept, so camera states that
+ * arrive while a frame is rendering replace each other and are never drawn.
+ * Frames alternate between two back buffers and are handed to the Event
+ * Dispatch Thread, which only has to blit them.
+ * Preview frames, requested while the user is interacting, skip
+ * antialiasing and filtering and render at a reduced resolution that adapts
+ * to keep them near a target frame time; full-quality frames are unaffected.
+ * A frame that fails to render is skipped and the thread waits for the next
+ * request; a run of failures is logged once.
+ */
+class SceneRenderThread {
+    /**
+     * Everything needed to draw one frame
+     */
+    static final class Request {
+        final Scene3D scene;
+        final Camera3D camera;
+        final SceneRenderer renderer;
+        final Color background;
+        final int width, height;
+        final boolean preview;
+
+        Request(Scene3D scene, Camera3D camera, SceneRenderer renderer, Color background,
+                int width, int height, boolean preview) {
+            this.scene = scene;
+            this.camera = camera;
+            this.renderer = renderer;
+            this.background = background;
+            this.width = width;
+            this.height = height;
+            this.preview = preview;
+        }
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(SceneRenderThread.class.getName());
+
+    // Preview frames aim for about 30 frames per second
+    private static final long TARGET_PREVIEW_NANOS = 33_000_000L;
+    // Preview resolution steps; quantized so the back buffers are not reallocated every frame
+    private static final int MIN_PREVIEW_STEP = 2;
+    private static final int PREVIEW_STEPS = 8;
+
+    private final Consumer<BufferedImage> onFrame;
+    private final AtomicReference<Request> latest = new AtomicReference<>();
+    private final Thread thread;
+
+    // Released by the Event Dispatch Thread once it shows a frame, which frees the other buffer
+    private final Semaphore backBufferFree = new Semaphore(1);
+    private final BufferedImage[] buffers = new BufferedImage[2];
+    private int back = 0;
+
+    // Current preview resolution in eighths of full size, only touched by the render thread
+    private int previewStep = PREVIEW_STEPS;
+
+    // Whether the last frame failed, so a renderer that keeps failing is logged only once
+    private boolean failing = false;
+
+    // Scratch face buffers, only touched by the render thread
+    private final FaceBuffer wallFaces = new FaceBuffer();
+    private final FaceBuffer furnitureFaces = new FaceBuffer();
+
+    /**
+     * Creates and starts the render thread
+     * @param onFrame receives each finished frame on the Event Dispatch Thread;
+     *                the image stays valid until the next frame is delivered and
+     *                may be smaller than requested, so it should be drawn scaled
+     */
+    SceneRenderThread(Consumer<BufferedImage> onFrame) {
+        this.onFrame = onFrame;
+        thread = new Thread(this::run, "scene-renderer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Asks for a frame, replacing any request that has not started yet
+     * @param request the frame to render
+     */
+    void request(Request request) {
+        latest.set(request);
+        LockSupport.unpark(thread);
+    }
+
+    private void run() {
+        while (true) {
+            Request request = latest.getAndSet(null);
+            if (request == null) {
+                LockSupport.park(this);
+                continue;
+            }
+            backBufferFree.acquireUninterruptibly();
+
+            // A newer request may have arrived while the previous frame was still on its way
+            Request newer = latest.getAndSet(null);
+            if (newer != null) {
+                request = newer;
+            }
+
+            BufferedImage frame;
+            try {
+                long start = System.nanoTime();
+                frame = render(request);
+                if (request.preview) {
+                    adaptPreview(System.nanoTime() - start);
+                }
+            } catch (RuntimeException | Error e) {
+                // Errors too, such as running out of memory for a large back buffer; this is the only render thread
+                buffers[0] = null;
+                buffers[1] = null;
+                backBufferFree.release();
+                if (!failing) {
+                    failing = true;
+                    LOGGER.log(Level.SEVERE, "Could not render the 3D view, skipping frames until one succeeds: "
+                        + e.getMessage(), e);
+                }
+                continue;
+            }
+            if (failing) {
+                failing = false;
+                LOGGER.info("3D view rendering recovered");
+            }
+            back ^= 1;
+            SwingUtilities.invokeLater(() -> {
+                onFrame.accept(frame);
+                backBufferFree.release();
+            });
+        }
+    }
+
+    private BufferedImage render(Request request) {
+        double factor = request.preview ? (double) previewStep / PREVIEW_STEPS : 1;
+        int width = Math.max(1, (int) Math.ceil(request.width * factor));
+        int height = Math.max(1, (int) Math.ceil(request.height * factor));
+
+        BufferedImage image = buffers[back];
+        if (image == null || image.getWidth() != width || image.getHeight() != height) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            buffers[back] = image;
+        }
+
+        Scene3D scene = request.scene;
+        Camera3D camera = request.camera.scaled(factor);
+        boolean fullQuality = !request.preview;
+        wallFaces.clear(scene);
+        furnitureFaces.clear(scene);
+        scene.collectWalls(wallFaces, camera);
+        scene.collectFurniture(furnitureFaces, camera);
+
+        Graphics2D g = image.createGraphics();
+        try {
+            request.renderer.render(g, width, height, request.background, fullQuality,
+                floor -> scene.drawFloor(floor, camera, fullQuality), wallFaces, furnitureFaces);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Moves the preview resolution one step towards the target frame time
+     * Cost grows with the pixel count, so a step is only taken when the
+     * frame time is clearly off, which keeps the resolution from oscillating
+     */
+    private void adaptPreview(long elapsedNanos) {
+        if (elapsedNanos > TARGET_PREVIEW_NANOS && previewStep > MIN_PREVIEW_STEP) {
+            previewStep--;
+        } else if (elapsedNanos < TARGET_PREVIEW_NANOS / 2 && previewStep < PREVIEW_STEPS) {
+            previewStep++;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ui;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.util.function.Consumer;
+
+/**
+ * Turns one projected frame of the 3D view into pixels
+ * The panel projects the walls and furniture into face buffers; the floor
+ * lies behind everything else and is painted first as a flat layer.
+ * Implementations can be swapped at runtime.
+ */
+interface SceneRenderer {
+    /**
+     * Gets the name shown in the renderer selector
+     */
+    String getName();
+
+    /**
+     * Creates another renderer of the same kind
+     * Renderers keep scratch buffers between frames, so each thread drawing frames needs its own
+     */
+    SceneRenderer newInstance();
+
+    /**
+     * Draws a frame
+     * @param g graphics context in screen pixels
+     * @param width the frame width in pixels
+     * @param height the frame height in pixels
+     * @param background the color behind the room
+     * @param antialias whether edges should be antialiased
+     * @param floor paints the floor layer in screen pixels
+     * @param layers the projected faces, drawn over the floor in this order
+     */
+    void render(Graphics2D g, int width, int height, Color background, boolean antialias,
+                Consumer<Graphics2D> floor, FaceBuffer... layers);
+}
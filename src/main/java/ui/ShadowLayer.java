@@ -0,0 +1,129 @@
+package ui;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.ConvolveOp;
+import java.awt.image.Kernel;
+import java.util.Arrays;
+
+/**
+ * Floor shadows of the furniture, rasterized once into a floor-space image
+ * Each item casts the shadow of its bounding box along a fixed key light
+ * direction. The mask is built on first use and blurred for soft edges;
+ * after that every frame composites it with one image draw through the
+ * floor transform, whatever the camera does. The panel keeps a layer until
+ * items move or the lighting changes.
+ */
+final class ShadowLayer {
+    // Horizontal shadow offset per unit of height: the key light shines from the far left, high above
+    private static final double LIGHT_X = 0.25;
+    private static final double LIGHT_Z = 0.25;
+
+    // Longest side of the mask in pixels, and the blur margin around the shadows
+    private static final int MAX_SIZE = 1024;
+    private static final int BLUR = 5;
+
+    // Per item: world x and z of the footprint, its width, length and height
+    private final double[] boxes;
+    private final float alpha;
+
+    private BufferedImage mask;
+    private double scale;
+    private Rectangle2D bounds;
+
+    /**
+     * Creates a shadow layer; nothing is rasterized until the first draw
+     * @param boxes per item: world x, z, width, length and height
+     * @param shadowIntensity the model shadow intensity
+     */
+    ShadowLayer(double[] boxes, float shadowIntensity) {
+        this.boxes = Arrays.copyOf(boxes, boxes.length);
+        // Matches the strength of the former per-item ovals
+        this.alpha = 100 / 255f * shadowIntensity * shadowIntensity;
+    }
+
+    /**
+     * Composites the shadows onto the floor
+     * @param g2d graphics context in screen pixels
+     * @param camera the camera of the frame
+     * @param smooth whether the mask is filtered when scaled
+     */
+    void draw(Graphics2D g2d, Camera3D camera, boolean smooth) {
+        BufferedImage image = getMask();
+        if (image == null) return;
+
+        AffineTransform originalTransform = g2d.getTransform();
+        Composite originalComposite = g2d.getComposite();
+        Object originalInterpolation = g2d.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+
+        // Mask pixels to floor coordinates, then floor coordinates to the screen
+        g2d.transform(camera.floorTransform());
+        g2d.translate(bounds.getX(), bounds.getY());
+        g2d.scale(1 / scale, 1 / scale);
+        g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, alpha));
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, smooth
+            ? RenderingHints.VALUE_INTERPOLATION_BILINEAR : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g2d.drawImage(image, 0, 0, null);
+
+        if (originalInterpolation != null) {
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, originalInterpolation);
+        }
+        g2d.setComposite(originalComposite);
+        g2d.setTransform(originalTransform);
+    }
+
+    private synchronized BufferedImage getMask() {
+        if (mask == null && boxes.length > 0) {
+            rasterize();
+        }
+        return mask;
+    }
+
+    private void rasterize() {
+        // Outline of each shadow: the footprint swept along the light to where the top lands
+        Path2D.Double shadows = new Path2D.Double(Path2D.WIND_NON_ZERO);
+        for (int i = 0; i < boxes.length; i += 5) {
+            double x = boxes[i], z = boxes[i + 1], w = boxes[i + 2], l = boxes[i + 3];
+            double dx = boxes[i + 4] * LIGHT_X, dz = boxes[i + 4] * LIGHT_Z;
+            shadows.moveTo(x, z);
+            shadows.lineTo(x + w, z);
+            shadows.lineTo(x + w + dx, z + dz);
+            shadows.lineTo(x + w + dx, z + l + dz);
+            shadows.lineTo(x + dx, z + l + dz);
+            shadows.lineTo(x, z + l);
+            shadows.closePath();
+        }
+
+        Rectangle2D area = shadows.getBounds2D();
+        scale = Math.min(1, MAX_SIZE / Math.max(area.getWidth(), area.getHeight()));
+        double margin = BLUR / scale;
+        bounds = new Rectangle2D.Double(area.getX() - margin, area.getY() - margin,
+            area.getWidth() + margin * 2, area.getHeight() + margin * 2);
+        int width = Math.max(1, (int) Math.ceil(bounds.getWidth() * scale));
+        int height = Math.max(1, (int) Math.ceil(bounds.getHeight() * scale));
+
+        BufferedImage sharp = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = sharp.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.scale(scale, scale);
+            g.translate(-bounds.getX(), -bounds.getY());
+            g.setColor(Color.BLACK);
+            g.fill(shadows);
+        } finally {
+            g.dispose();
+        }
+
+        // Soft edges
+        float[] weights = new float[BLUR * BLUR];
+        Arrays.fill(weights, 1f / weights.length);
+        mask = new ConvolveOp(new Kernel(BLUR, BLUR, weights), ConvolveOp.EDGE_NO_OP, null).filter(sharp, null);
+    }
+}
@@ -0,0 +1,137 @@
+package ui;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uniform grid spatial index over axis-aligned rectangles
+ * Used by the 2D view to find the items that intersect the viewport
+ * or lie under the mouse without scanning every item
+ * @param <T> the indexed element type
+ */
+class SpatialGrid<T> {
+    private final int cellSize;
+    private final Map<Long, List<T>> cells = new HashMap<>();
+    private final Map<T, Rectangle> bounds = new IdentityHashMap<>();
+
+    /**
+     * Creates an empty grid
+     * @param cellSize the side length of a grid cell in world units
+     */
+    SpatialGrid(int cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Adds an element, or moves it if it is already indexed
+     * @param element the element to index
+     * @param x left edge
+     * @param y top edge
+     * @param width width of the element
+     * @param height height of the element
+     */
+    void put(T element, int x, int y, int width, int height) {
+        Rectangle old = bounds.get(element);
+        if (old != null) {
+            if (old.x == x && old.y == y && old.width == width && old.height == height) {
+                return;
+            }
+            unlink(element, old);
+        }
+        Rectangle r = new Rectangle(x, y, width, height);
+        bounds.put(element, r);
+        link(element, r);
+    }
+
+    /**
+     * Removes an element from the grid
+     * @param element the element to remove
+     */
+    void remove(T element) {
+        Rectangle old = bounds.remove(element);
+        if (old != null) {
+            unlink(element, old);
+        }
+    }
+
+    /**
+     * Removes all elements
+     */
+    void clear() {
+        cells.clear();
+        bounds.clear();
+    }
+
+    /**
+     * Gets the number of indexed elements
+     * @return the element count
+     */
+    int size() {
+        return bounds.size();
+    }
+
+    /**
+     * Collects every element whose bounds intersect the given area
+     * Each element is reported once, even when it spans several cells
+     * @param area the query rectangle in world units
+     * @param result the list the matching elements are appended to
+     */
+    void query(Rectangle area, List<T> result) {
+        int minX = area.x;
+        int minY = area.y;
+        int maxX = area.x + area.width;
+        int maxY = area.y + area.height;
+
+        for (int cy = cell(minY); cy <= cell(maxY); cy++) {
+            for (int cx = cell(minX); cx <= cell(maxX); cx++) {
+                List<T> list = cells.get(key(cx, cy));
+                if (list == null) continue;
+
+                for (T element : list) {
+                    Rectangle r = bounds.get(element);
+                    if (r.x > maxX || r.y > maxY || r.x + r.width < minX || r.y + r.height < minY) {
+                        continue;
+                    }
+                    // Report only from the first cell shared by the element and the query
+                    if (cell(Math.max(r.x, minX)) == cx && cell(Math.max(r.y, minY)) == cy) {
+                        result.add(element);
+                    }
+                }
+            }
+        }
+    }
+
+    private void link(T element, Rectangle r) {
+        for (int cy = cell(r.y); cy <= cell(r.y + r.height); cy++) {
+            for (int cx = cell(r.x); cx <= cell(r.x + r.width); cx++) {
+                cells.computeIfAbsent(key(cx, cy), unused -> new ArrayList<>(4)).add(element);
+            }
+        }
+    }
+
+    private void unlink(T element, Rectangle r) {
+        for (int cy = cell(r.y); cy <= cell(r.y + r.height); cy++) {
+            for (int cx = cell(r.x); cx <= cell(r.x + r.width); cx++) {
+                Long key = key(cx, cy);
+                List<T> list = cells.get(key);
+                if (list == null) continue;
+                list.remove(element);
+                if (list.isEmpty()) {
+                    cells.remove(key);
+                }
+            }
+        }
+    }
+
+    private int cell(int coordinate) {
+        return Math.floorDiv(coordinate, cellSize);
+    }
+
+    private static Long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+}
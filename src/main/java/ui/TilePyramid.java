@@ -0,0 +1,272 @@
+package ui;
+
+import javax.swing.SwingUtilities;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Multi-resolution tile cache for large 2D floor plans
+ * The plan is rasterized into fixed-size tiles at power-of-two zoom levels.
+ * Tiles are rendered in parallel on a background pool and kept in a
+ * memory-bounded LRU; while a tile is missing, a cached coarser tile is
+ * scaled up in its place. All cache state is confined to the Event Dispatch Thread.
+ */
+class TilePyramid {
+    /**
+     * Renders part of the plan into a tile
+     * Implementations are called from pool threads while the plan is edited; they
+     * must only read state that is replaced rather than changed in place
+     */
+    interface TileRenderer {
+        /**
+         * Checks whether any content intersects a world area, so empty tiles need no image
+         * @param world the world area covered by the tile
+         * @return true if the tile would have content
+         */
+        boolean hasContent(Rectangle2D world);
+
+        /**
+         * Draws the content of a world area
+         * @param g graphics context already transformed to world coordinates
+         * @param world the world area covered by the tile
+         * @param scale the pixels per world unit of the tile
+         * @param excluded the id of an item left out of the tile because it is drawn live, or -1
+         */
+        void render(Graphics2D g, Rectangle2D world, double scale, int excluded);
+    }
+
+    static final int TILE_SIZE = 256;
+    static final int MIN_LEVEL = -12;
+    static final int MAX_LEVEL = 3;
+
+    // Number of coarser levels searched for a stand-in while a tile renders
+    private static final int FALLBACK_LEVELS = 4;
+
+    // Marks a tile that was rendered and found to be empty
+    private static final BufferedImage EMPTY = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+
+    private final Runnable onTileReady;
+    private final long maxBytes;
+    private final ExecutorService pool;
+
+    private final LinkedHashMap<Long, BufferedImage> tiles = new LinkedHashMap<>(256, 0.75f, true);
+    private final Set<Long> pending = new HashSet<>();
+    // Pending tiles whose area changed after they were requested; their results are outdated
+    private final Set<Long> stale = new HashSet<>();
+    private volatile Set<Long> wanted = Collections.emptySet();
+    private long usedBytes = 0;
+
+    /**
+     * Creates a tile pyramid
+     * @param maxBytes the memory budget for cached tile images
+     * @param onTileReady called on the Event Dispatch Thread when a new tile is available
+     */
+    TilePyramid(long maxBytes, Runnable onTileReady) {
+        this.maxBytes = maxBytes;
+        this.onTileReady = onTileReady;
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        this.pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "plan-tile-renderer");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+
+    /**
+     * Draws the plan from cached tiles, requesting any that are missing
+     * @param g graphics context in screen pixels
+     * @param renderer the renderer used for missing tiles
+     * @param excluded the id of an item missing tiles leave out, or -1; tiles
+     *                 covering it must be invalidated when it changes
+     * @param viewScale the current view scale
+     * @param viewX the current horizontal view offset
+     * @param viewY the current vertical view offset
+     * @param width the viewport width in pixels
+     * @param height the viewport height in pixels
+     */
+    void paint(Graphics2D g, TileRenderer renderer, int excluded, double viewScale, double viewX, double viewY, int width, int height) {
+        int level = levelFor(viewScale);
+        double tileScale = Math.scalb(1.0, level);
+        double drawFactor = viewScale / tileScale;
+        double screenTile = TILE_SIZE * drawFactor;
+
+        int minTx = (int) Math.floor(-viewX / screenTile);
+        int minTy = (int) Math.floor(-viewY / screenTile);
+        int maxTx = (int) Math.floor((width - viewX) / screenTile);
+        int maxTy = (int) Math.floor((height - viewY) / screenTile);
+
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        Set<Long> frameTiles = new HashSet<>();
+
+        for (int ty = minTy; ty <= maxTy; ty++) {
+            for (int tx = minTx; tx <= maxTx; tx++) {
+                int x0 = (int) Math.round(viewX + tx * screenTile);
+                int y0 = (int) Math.round(viewY + ty * screenTile);
+                int x1 = (int) Math.round(viewX + (tx + 1) * screenTile);
+                int y1 = (int) Math.round(viewY + (ty + 1) * screenTile);
+
+                long key = key(level, tx, ty);
+                frameTiles.add(key);
+                BufferedImage tile = tiles.get(key);
+                if (tile != null) {
+                    if (tile != EMPTY) {
+                        g.drawImage(tile, x0, y0, x1, y1, 0, 0, TILE_SIZE, TILE_SIZE, null);
+                    }
+                    continue;
+                }
+
+                request(renderer, excluded, key, level, tx, ty);
+                drawFallback(g, level, tx, ty, x0, y0, x1, y1);
+            }
+        }
+        wanted = frameTiles;
+    }
+
+    /**
+     * Drops every cached tile that overlaps a world area, at all levels
+     * @param world the world area that changed
+     */
+    void invalidate(Rectangle2D world) {
+        // Only tiles rendering over the changed area are outdated; others can still be stored
+        for (Long key : pending) {
+            if (tileBounds(key).intersects(world)) {
+                stale.add(key);
+            }
+        }
+        Iterator<Map.Entry<Long, BufferedImage>> it = tiles.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, BufferedImage> entry = it.next();
+            if (tileBounds(entry.getKey()).intersects(world)) {
+                usedBytes -= bytes(entry.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Drops every cached tile
+     */
+    void invalidateAll() {
+        stale.addAll(pending);
+        tiles.clear();
+        usedBytes = 0;
+    }
+
+    private void request(TileRenderer renderer, int excluded, long key, int level, int tx, int ty) {
+        if (!pending.add(key)) return;
+
+        pool.execute(() -> {
+            BufferedImage image = null;
+            // Skip tiles that scrolled out of view while queued
+            if (wanted.contains(key)) {
+                image = renderTile(renderer, excluded, level, tx, ty);
+            }
+            BufferedImage result = image;
+            SwingUtilities.invokeLater(() -> {
+                pending.remove(key);
+                if (stale.remove(key)) {
+                    // Drawn from an outdated plan; repaint so the tile is requested again if still in view
+                    if (wanted.contains(key)) {
+                        onTileReady.run();
+                    }
+                } else if (result != null) {
+                    store(key, result);
+                    onTileReady.run();
+                }
+            });
+        });
+    }
+
+    private static BufferedImage renderTile(TileRenderer renderer, int excluded, int level, int tx, int ty) {
+        double scale = Math.scalb(1.0, level);
+        Rectangle2D world = tileBounds(level, tx, ty);
+        if (!renderer.hasContent(world)) {
+            return EMPTY;
+        }
+
+        BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.scale(scale, scale);
+            g.translate(-world.getX(), -world.getY());
+            g.clip(world);
+            renderer.render(g, world, scale, excluded);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private void store(long key, BufferedImage image) {
+        BufferedImage old = tiles.put(key, image);
+        usedBytes += bytes(image) - bytes(old);
+
+        // Evict least recently drawn tiles beyond the memory budget
+        Iterator<Map.Entry<Long, BufferedImage>> it = tiles.entrySet().iterator();
+        while (usedBytes > maxBytes && it.hasNext()) {
+            Map.Entry<Long, BufferedImage> entry = it.next();
+            if (entry.getKey() == key) continue;
+            usedBytes -= bytes(entry.getValue());
+            it.remove();
+        }
+    }
+
+    /**
+     * Draws the matching part of a cached coarser tile in place of a missing one
+     */
+    private void drawFallback(Graphics2D g, int level, int tx, int ty, int x0, int y0, int x1, int y1) {
+        for (int up = 1; up <= FALLBACK_LEVELS && level - up >= MIN_LEVEL; up++) {
+            int px = tx >> up;
+            int py = ty >> up;
+            BufferedImage parent = tiles.get(key(level - up, px, py));
+            if (parent == null) continue;
+            if (parent == EMPTY) return;
+
+            int span = TILE_SIZE >> up;
+            int sx = (tx - (px << up)) * span;
+            int sy = (ty - (py << up)) * span;
+            g.drawImage(parent, x0, y0, x1, y1, sx, sy, sx + Math.max(1, span), sy + Math.max(1, span), null);
+            return;
+        }
+    }
+
+    /**
+     * Picks the tile level whose scale is the smallest power of two at or above the view scale
+     */
+    static int levelFor(double viewScale) {
+        int level = (int) Math.ceil(Math.log(viewScale) / Math.log(2) - 1e-9);
+        return Math.max(MIN_LEVEL, Math.min(MAX_LEVEL, level));
+    }
+
+    private static Rectangle2D tileBounds(int level, int tx, int ty) {
+        double worldTile = TILE_SIZE / Math.scalb(1.0, level);
+        return new Rectangle2D.Double(tx * worldTile, ty * worldTile, worldTile, worldTile);
+    }
+
+    private static Rectangle2D tileBounds(long key) {
+        int level = (int) (key >>> 56) - 32;
+        int tx = (int) (key << 8 >> 36);
+        int ty = (int) (key << 36 >> 36);
+        return tileBounds(level, tx, ty);
+    }
+
+    private static long key(int level, int tx, int ty) {
+        return ((long) (level + 32) << 56) | ((tx & 0xFFFFFFFL) << 28) | (ty & 0xFFFFFFFL);
+    }
+
+    private static long bytes(BufferedImage image) {
+        return image == null || image == EMPTY ? 0 : (long) image.getWidth() * image.getHeight() * 4;
+    }
+}
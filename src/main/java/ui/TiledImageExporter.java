@@ -0,0 +1,145 @@
+package ui;
+
+import service.BackgroundPool;
+import service.StreamingPngWriter;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Writes views as PNG images far larger than the screen
+ * The image is rendered in horizontal bands of tiles. The tiles of a band
+ * render in parallel while the previous band is compressed, and each band is
+ * streamed to the file as soon as it is written out. At most two bands are
+ * in memory at a time, whatever the size of the image.
+ */
+final class TiledImageExporter {
+    /**
+     * Draws part of an exported image
+     * Called from pool threads, several tiles at once, so implementations
+     * must only read immutable snapshots and never touch Swing components
+     */
+    interface TileSource {
+        /**
+         * Draws one tile
+         * @param g graphics context with its origin at the tile's top-left corner
+         * @param x the left edge of the tile in image pixels
+         * @param y the top edge of the tile in image pixels
+         * @param width the tile width in pixels
+         * @param height the tile height in pixels
+         */
+        void render(Graphics2D g, int x, int y, int width, int height);
+    }
+
+    // A band of a 20000 pixel wide image holds about 20 MB of pixels
+    static final int BAND_HEIGHT = 256;
+    static final int TILE_WIDTH = 1024;
+
+    private TiledImageExporter() {
+    }
+
+    /**
+     * Renders an image tile by tile and writes it as a PNG file
+     * The file is written next to the target and moved into place, so a
+     * failed export never leaves half an image behind
+     * @param source draws the tiles
+     * @param width the image width in pixels
+     * @param height the image height in pixels
+     * @param file the PNG file to write
+     * @throws IOException if the file cannot be written or a tile fails to render
+     */
+    static void export(TileSource source, int width, int height, File file) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Image size must be positive: " + width + "x" + height);
+        }
+        File directory = file.getAbsoluteFile().getParentFile();
+        ExportFiles.ensureDirectory(directory);
+
+        File temp = File.createTempFile("export", ".tmp", directory);
+        try {
+            try (StreamingPngWriter writer = new StreamingPngWriter(
+                    new BufferedOutputStream(new FileOutputStream(temp), 1 << 16), width, height)) {
+                int[] row = new int[width];
+                List<CompletableFuture<BufferedImage>> band = renderBand(source, width, height, 0);
+                for (int top = 0; top < height; top += BAND_HEIGHT) {
+                    // The next band renders while this one is compressed
+                    List<CompletableFuture<BufferedImage>> next = top + BAND_HEIGHT < height
+                        ? renderBand(source, width, height, top + BAND_HEIGHT) : null;
+                    writeBand(writer, join(band), row);
+                    band = next;
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            temp.delete();
+        }
+    }
+
+    /**
+     * Starts rendering the tiles of the band whose top edge is at the given row
+     */
+    private static List<CompletableFuture<BufferedImage>> renderBand(TileSource source, int width, int height,
+                                                                     int top) {
+        int bandHeight = Math.min(BAND_HEIGHT, height - top);
+        List<CompletableFuture<BufferedImage>> tiles = new ArrayList<>();
+        for (int left = 0; left < width; left += TILE_WIDTH) {
+            int x = left;
+            int tileWidth = Math.min(TILE_WIDTH, width - left);
+            tiles.add(CompletableFuture.supplyAsync(() -> {
+                BufferedImage tile = new BufferedImage(tileWidth, bandHeight, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = tile.createGraphics();
+                try {
+                    source.render(g, x, top, tileWidth, bandHeight);
+                } finally {
+                    g.dispose();
+                }
+                return tile;
+            }, BackgroundPool.get()));
+        }
+        return tiles;
+    }
+
+    private static List<BufferedImage> join(List<CompletableFuture<BufferedImage>> band) throws IOException {
+        List<BufferedImage> tiles = new ArrayList<>(band.size());
+        try {
+            for (CompletableFuture<BufferedImage> tile : band) {
+                tiles.add(tile.join());
+            }
+        } catch (CompletionException e) {
+            throw new IOException("Rendering a tile failed", e.getCause());
+        }
+        return tiles;
+    }
+
+    /**
+     * Stitches each row of a band together from its tiles and writes it
+     */
+    private static void writeBand(StreamingPngWriter writer, List<BufferedImage> tiles, int[] row)
+            throws IOException {
+        int rows = tiles.get(0).getHeight();
+        int[][] pixels = new int[tiles.size()][];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = ((DataBufferInt) tiles.get(i).getRaster().getDataBuffer()).getData();
+        }
+        for (int y = 0; y < rows; y++) {
+            int x = 0;
+            for (int i = 0; i < pixels.length; i++) {
+                int tileWidth = tiles.get(i).getWidth();
+                System.arraycopy(pixels[i], y * tileWidth, row, x, tileWidth);
+                x += tileWidth;
+            }
+            writer.writeRow(row, 0);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package ui;
+
+import service.BackgroundPool;
+import service.StreamingPngWriter;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+
+/**
+ * Writes a turntable animation of the 3D view as a numbered PNG sequence
+ * Frames are independent, so each one renders and compresses on its own
+ * thread of the shared background pool with its own image, and the whole
+ * sequence takes about the time of one frame per core.
+ */
+final class TurntableExporter {
+    /**
+     * Draws one frame of the turntable
+     * Frames are drawn concurrently, each into its own image, while the user
+     * keeps editing; a source draws from a scene and camera captured up front
+     */
+    interface FrameSource {
+        /**
+         * Draws the view turned to an angle
+         * @param g graphics context of the frame
+         * @param width the frame width in pixels
+         * @param height the frame height in pixels
+         * @param yRotation the turn around the vertical axis in degrees
+         */
+        void render(Graphics2D g, int width, int height, float yRotation);
+    }
+
+    private TurntableExporter() {
+    }
+
+    /**
+     * Renders a full turn and writes it as prefix-0001.png, prefix-0002.png and so on
+     * @param source draws the frames
+     * @param startRotation the turn of the first frame in degrees
+     * @param frames the number of frames in the full turn
+     * @param width the frame width in pixels
+     * @param height the frame height in pixels
+     * @param directory the directory the frames are written to
+     * @param prefix the start of each frame's file name
+     * @param progress called with the number of finished frames, from pool threads
+     * @param cancelled checked before each frame, from pool threads; frames not started once it is true are skipped
+     * @throws IOException if a frame cannot be rendered or written
+     * @throws CancellationException if the export was cancelled before all frames were written
+     */
+    static void export(FrameSource source, float startRotation, int frames, int width, int height,
+                       File directory, String prefix, IntConsumer progress, BooleanSupplier cancelled)
+            throws IOException {
+        ExportFiles.ensureDirectory(directory);
+        int digits = Math.max(4, String.valueOf(frames).length());
+        AtomicInteger finished = new AtomicInteger();
+
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(frames);
+        for (int i = 0; i < frames; i++) {
+            float rotation = (startRotation + 360f * i / frames) % 360;
+            File file = new File(directory, String.format("%s-%0" + digits + "d.png", prefix, i + 1));
+            tasks.add(CompletableFuture.runAsync(() -> {
+                if (cancelled.getAsBoolean()) {
+                    throw new CancellationException("Turntable export cancelled");
+                }
+                try {
+                    writeFrame(source, rotation, width, height, file);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+                progress.accept(finished.incrementAndGet());
+            }, BackgroundPool.get()));
+        }
+
+        for (CompletableFuture<Void> task : tasks) {
+            try {
+                task.join();
+            } catch (CompletionException | CancellationException e) {
+                // Frames not started yet are not worth rendering any more
+                for (CompletableFuture<Void> other : tasks) {
+                    other.cancel(false);
+                }
+                if (cancelled.getAsBoolean()) {
+                    throw new CancellationException("Turntable export cancelled");
+                }
+                throw e.getCause() instanceof IOException ? (IOException) e.getCause()
+                    : new IOException("Rendering a frame failed", e.getCause());
+            }
+        }
+    }
+
+    private static void writeFrame(FrameSource source, float rotation, int width, int height, File file)
+            throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            source.render(g, width, height, rotation);
+        } finally {
+            g.dispose();
+        }
+
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        try (StreamingPngWriter writer = new StreamingPngWriter(
+                new BufferedOutputStream(new FileOutputStream(file), 1 << 16), width, height)) {
+            for (int y = 0; y < height; y++) {
+                writer.writeRow(pixels, y * width);
+            }
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package ui;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * Software z-buffer renderer
+ * Faces are split into triangles and binned into square screen tiles; the
+ * tiles are rasterized in parallel on a ForkJoin pool into an int color
+ * buffer and a float depth buffer, which never share pixels between tiles.
+ * The color buffer backs a BufferedImage, so the frame is blitted in one call.
+ * Intersecting parts are resolved per pixel, so no sorting is needed.
+ */
+class ZBufferSceneRenderer implements SceneRenderer {
+    private static final int TILE_SIZE = 64;
+    private static final int OUTLINE_RGB = 0xFF000000;
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    // Per triangle: bounding box, three edge functions (a, b, c, outline width) and the depth plane
+    private static final int STRIDE = 19;
+    private static final int EDGES = 4;
+    private static final int DEPTH = 16;
+
+    private BufferedImage image;
+    private int[] colorBuffer;
+    private float[] depthBuffer;
+    private int width, height;
+
+    private double[] triangles = new double[STRIDE * 256];
+    private int[] triangleColors = new int[256];
+    private int triangleCount;
+
+    // Triangle indices of every tile, stored back to back; tile t owns tileStart[t] to tileStart[t + 1]
+    private int[] tileStart = new int[1];
+    private int[] tileTriangles = new int[1024];
+    private int tileColumns, tileRows;
+
+    @Override
+    public String getName() {
+        return "Z-Buffer";
+    }
+
+    @Override
+    public SceneRenderer newInstance() {
+        return new ZBufferSceneRenderer();
+    }
+
+    @Override
+    public void render(Graphics2D g, int width, int height, Color background, boolean antialias,
+                       Consumer<Graphics2D> floor, FaceBuffer... layers) {
+        if (width <= 0 || height <= 0) return;
+        ensureBuffers(width, height);
+
+        // The floor lies behind everything, so it is painted straight into the color buffer
+        Graphics2D ig = image.createGraphics();
+        try {
+            ig.setColor(background);
+            ig.fillRect(0, 0, width, height);
+            ig.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                antialias ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF);
+            floor.accept(ig);
+        } finally {
+            ig.dispose();
+        }
+
+        triangleCount = 0;
+        for (FaceBuffer faces : layers) {
+            for (int face = 0; face < faces.size(); face++) {
+                addFace(faces, face);
+            }
+        }
+        binTriangles();
+        POOL.invoke(new TileTask(0, tileColumns * tileRows));
+
+        g.drawImage(image, 0, 0, null);
+    }
+
+    private void ensureBuffers(int width, int height) {
+        if (image != null && this.width == width && this.height == height) return;
+        this.width = width;
+        this.height = height;
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        colorBuffer = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        depthBuffer = new float[width * height];
+        tileColumns = (width + TILE_SIZE - 1) / TILE_SIZE;
+        tileRows = (height + TILE_SIZE - 1) / TILE_SIZE;
+        tileStart = new int[tileColumns * tileRows + 1];
+    }
+
+    /**
+     * Splits a quad into two triangles; the shared diagonal is not outlined
+     */
+    private void addFace(FaceBuffer faces, int face) {
+        int rgb = faces.color(face).getRGB();
+        addTriangle(faces, face, 0, 1, 2, true, true, false, rgb);
+        addTriangle(faces, face, 0, 2, 3, false, true, true, rgb);
+    }
+
+    private void addTriangle(FaceBuffer faces, int face, int c0, int c1, int c2,
+                             boolean outline01, boolean outline12, boolean outline20, int rgb) {
+        double x0 = faces.x(face, c0), y0 = faces.y(face, c0), z0 = faces.z(face, c0);
+        double x1 = faces.x(face, c1), y1 = faces.y(face, c1), z1 = faces.z(face, c1);
+        double x2 = faces.x(face, c2), y2 = faces.y(face, c2), z2 = faces.z(face, c2);
+
+        double area = (x1 - x0) * (y2 - y0) - (x2 - x0) * (y1 - y0);
+        if (Math.abs(area) < 1e-6) return;
+
+        double minX = Math.max(0, Math.min(x0, Math.min(x1, x2)));
+        double minY = Math.max(0, Math.min(y0, Math.min(y1, y2)));
+        double maxX = Math.min(width, Math.max(x0, Math.max(x1, x2)));
+        double maxY = Math.min(height, Math.max(y0, Math.max(y1, y2)));
+        if (minX >= maxX || minY >= maxY) return;
+
+        if (triangleCount == triangleColors.length) {
+            triangles = Arrays.copyOf(triangles, triangles.length * 2);
+            triangleColors = Arrays.copyOf(triangleColors, triangleColors.length * 2);
+        }
+        int t = triangleCount * STRIDE;
+        triangles[t] = minX;
+        triangles[t + 1] = minY;
+        triangles[t + 2] = maxX;
+        triangles[t + 3] = maxY;
+
+        // Edge functions are positive inside whatever the winding
+        double sign = area > 0 ? 1 : -1;
+        setEdge(t + EDGES, x0, y0, x1, y1, sign, outline01);
+        setEdge(t + EDGES + 4, x1, y1, x2, y2, sign, outline12);
+        setEdge(t + EDGES + 8, x2, y2, x0, y0, sign, outline20);
+
+        // Faces are planar, so depth is linear in screen x and y
+        double dzdx = ((z1 - z0) * (y2 - y0) - (z2 - z0) * (y1 - y0)) / area;
+        double dzdy = ((x1 - x0) * (z2 - z0) - (x2 - x0) * (z1 - z0)) / area;
+        triangles[t + DEPTH] = dzdx;
+        triangles[t + DEPTH + 1] = dzdy;
+        triangles[t + DEPTH + 2] = z0 - dzdx * x0 - dzdy * y0;
+
+        triangleColors[triangleCount] = rgb;
+        triangleCount++;
+    }
+
+    /**
+     * Stores the edge function a*x + b*y + c of an edge, with the edge value
+     * below which a pixel lies on the outline; -1 means the edge is not outlined
+     */
+    private void setEdge(int e, double xa, double ya, double xb, double yb, double sign, boolean outline) {
+        double a = -(yb - ya) * sign;
+        double b = (xb - xa) * sign;
+        triangles[e] = a;
+        triangles[e + 1] = b;
+        triangles[e + 2] = -(a * xa + b * ya);
+        // One pixel measured along the major axis, so outlines are one pixel wide at any slope
+        triangles[e + 3] = outline ? Math.max(Math.abs(a), Math.abs(b)) : -1;
+    }
+
+    private void binTriangles() {
+        int tiles = tileColumns * tileRows;
+        Arrays.fill(tileStart, 0);
+
+        // Count the triangles of each tile, then turn the counts into start offsets
+        for (int i = 0; i < triangleCount; i++) {
+            int t = i * STRIDE;
+            for (int ty = tileOf(triangles[t + 1]); ty <= tileOf(triangles[t + 3] - 1e-9); ty++) {
+                for (int tx = tileOf(triangles[t]); tx <= tileOf(triangles[t + 2] - 1e-9); tx++) {
+                    tileStart[ty * tileColumns + tx + 1]++;
+                }
+            }
+        }
+        for (int tile = 0; tile < tiles; tile++) {
+            tileStart[tile + 1] += tileStart[tile];
+        }
+        if (tileTriangles.length < tileStart[tiles]) {
+            tileTriangles = new int[Math.max(tileStart[tiles], tileTriangles.length * 2)];
+        }
+
+        // Fill in order, so every tile sees its triangles in submission order
+        int[] next = Arrays.copyOf(tileStart, tiles);
+        for (int i = 0; i < triangleCount; i++) {
+            int t = i * STRIDE;
+            for (int ty = tileOf(triangles[t + 1]); ty <= tileOf(triangles[t + 3] - 1e-9); ty++) {
+                for (int tx = tileOf(triangles[t]); tx <= tileOf(triangles[t + 2] - 1e-9); tx++) {
+                    tileTriangles[next[ty * tileColumns + tx]++] = i;
+                }
+            }
+        }
+    }
+
+    private int tileOf(double coordinate) {
+        return Math.max(0, (int) coordinate / TILE_SIZE);
+    }
+
+    private void renderTile(int tile) {
+        int tileX0 = (tile % tileColumns) * TILE_SIZE;
+        int tileY0 = (tile / tileColumns) * TILE_SIZE;
+        int tileX1 = Math.min(width, tileX0 + TILE_SIZE);
+        int tileY1 = Math.min(height, tileY0 + TILE_SIZE);
+
+        for (int y = tileY0; y < tileY1; y++) {
+            Arrays.fill(depthBuffer, y * width + tileX0, y * width + tileX1, Float.NEGATIVE_INFINITY);
+        }
+
+        for (int i = tileStart[tile]; i < tileStart[tile + 1]; i++) {
+            int triangle = tileTriangles[i];
+            int t = triangle * STRIDE;
+            int x0 = Math.max(tileX0, (int) triangles[t]);
+            int y0 = Math.max(tileY0, (int) triangles[t + 1]);
+            int x1 = Math.min(tileX1, (int) Math.ceil(triangles[t + 2]));
+            int y1 = Math.min(tileY1, (int) Math.ceil(triangles[t + 3]));
+            rasterize(t, triangleColors[triangle], x0, y0, x1, y1);
+        }
+    }
+
+    /**
+     * Fills the pixels of a triangle within a clipped box, sampling at pixel centers
+     */
+    private void rasterize(int t, int rgb, int x0, int y0, int x1, int y1) {
+        double a0 = triangles[t + EDGES], b0 = triangles[t + EDGES + 1], c0 = triangles[t + EDGES + 2], w0 = triangles[t + EDGES + 3];
+        double a1 = triangles[t + EDGES + 4], b1 = triangles[t + EDGES + 5], c1 = triangles[t + EDGES + 6], w1 = triangles[t + EDGES + 7];
+        double a2 = triangles[t + EDGES + 8], b2 = triangles[t + EDGES + 9], c2 = triangles[t + EDGES + 10], w2 = triangles[t + EDGES + 11];
+        double dzdx = triangles[t + DEPTH], dzdy = triangles[t + DEPTH + 1], zc = triangles[t + DEPTH + 2];
+
+        double px0 = x0 + 0.5;
+        for (int y = y0; y < y1; y++) {
+            double py = y + 0.5;
+            double e0 = a0 * px0 + b0 * py + c0;
+            double e1 = a1 * px0 + b1 * py + c1;
+            double e2 = a2 * px0 + b2 * py + c2;
+            double z = dzdx * px0 + dzdy * py + zc;
+            int index = y * width + x0;
+
+            for (int x = x0; x < x1; x++, index++) {
+                if (e0 >= 0 && e1 >= 0 && e2 >= 0 && z > depthBuffer[index]) {
+                    depthBuffer[index] = (float) z;
+                    colorBuffer[index] = e0 < w0 || e1 < w1 || e2 < w2 ? OUTLINE_RGB : rgb;
+                }
+                e0 += a0;
+                e1 += a1;
+                e2 += a2;
+                z += dzdx;
+            }
+        }
+    }
+
+    /**
+     * Splits a range of tiles in half until single tiles are left
+     */
+    private final class TileTask extends RecursiveAction {
+        private final int from, to;
+
+        TileTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                for (int tile = from; tile < to; tile++) {
+                    renderTile(tile);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new TileTask(from, middle), new TileTask(middle, to));
+            }
+        }
+    }
+}